@@ -0,0 +1,44 @@
+package com.evs.repository;
+
+import com.evs.model.VariableType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the multi-row INSERT used by {@code saveBatch} versus looking up the
+ * precomputed statements of {@link VariableSqlTemplates}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchInsertSqlBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    @Benchmark
+    public String buildBatchInsertSql() {
+        return VariableSqlTemplates.buildBatchInsertSql(VariableType.STRING, rows);
+    }
+
+    @Benchmark
+    public void templateBatchInsertSql(Blackhole blackhole) {
+        for (int shape : VariableSqlTemplates.split(rows)) {
+            blackhole.consume(VariableSqlTemplates.insert(VariableType.STRING, shape));
+        }
+    }
+}
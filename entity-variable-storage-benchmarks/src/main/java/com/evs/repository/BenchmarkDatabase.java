@@ -0,0 +1,104 @@
+package com.evs.repository;
+
+import com.evs.config.EVSConfig;
+import com.evs.config.EVSFactory;
+import com.evs.exception.EVSException;
+import com.evs.model.Entity;
+import com.evs.model.EntityInstance;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Connects the end-to-end benchmarks to PostgreSQL and creates a throwaway entity and instance.
+ * Connection settings come from the {@code evs.bench.jdbcUrl}, {@code evs.bench.username} and
+ * {@code evs.bench.password} system properties and default to docker-compose.yml.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    final EVSFactory factory;
+    final VariableRepository repository;
+    final UUID entityId;
+    final UUID instanceId;
+    final Instant registeredAt;
+
+    BenchmarkDatabase() {
+        EVSConfig config = new EVSConfig();
+        config.setJdbcUrl(System.getProperty("evs.bench.jdbcUrl", "jdbc:postgresql://localhost:5432/evs_db"));
+        config.setUsername(System.getProperty("evs.bench.username", "postgres"));
+        config.setPassword(System.getProperty("evs.bench.password", "postgres"));
+        config.setPartitionMaintenanceEnabled(false);
+
+        factory = new EVSFactory(config);
+        repository = new VariableRepository(factory.getDataSource(), config);
+
+        Entity entity = factory.entityService().createEntity(Entity.builder()
+                .name("bench_" + UUID.randomUUID().toString().replace("-", ""))
+                .displayName("Benchmark")
+                .build());
+        entityId = entity.id();
+
+        EntityInstance instance = factory.entityInstanceService().createInstance(EntityInstance.builder()
+                .entityId(entityId)
+                .uuid(UUID.randomUUID())
+                .build());
+        instanceId = instance.id();
+        registeredAt = instance.registeredAt();
+    }
+
+    /**
+     * Builds {@code count} variables; {@code mixed} cycles through STRING, INTEGER, FLOAT,
+     * BOOLEAN and JSON so {@code saveBatch} has to split the batch per type.
+     */
+    List<Variable> variables(int count, boolean mixed) {
+        VariableType[] types = mixed
+                ? new VariableType[]{VariableType.STRING, VariableType.INTEGER, VariableType.FLOAT,
+                        VariableType.BOOLEAN, VariableType.JSON}
+                : new VariableType[]{VariableType.STRING};
+
+        List<Variable> variables = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            VariableType type = types[i % types.length];
+            Object value = switch (type) {
+                case INTEGER -> (long) i;
+                case FLOAT -> i * 0.5;
+                case BOOLEAN -> i % 2 == 0;
+                case JSON -> Map.of("index", i, "label", "row-" + i);
+                default -> "value-" + i;
+            };
+            variables.add(Variable.builder()
+                    .entityId(entityId)
+                    .entityInstanceId(instanceId)
+                    .variableName("var_" + i)
+                    .variableType(type)
+                    .value(value)
+                    .registeredAt(registeredAt)
+                    .build());
+        }
+        return variables;
+    }
+
+    void deleteVariables() {
+        try (Connection conn = factory.getDataSource().getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM variables WHERE entity_id = ?")) {
+            ps.setObject(1, entityId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new EVSException("Failed to clean up benchmark variables", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        deleteVariables();
+        factory.close();
+    }
+}
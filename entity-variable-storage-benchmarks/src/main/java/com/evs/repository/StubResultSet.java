@@ -0,0 +1,51 @@
+package com.evs.repository;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-row {@link ResultSet} backed by a column map, so row mapping can be measured
+ * without a database. Supports {@code findColumn}, the by-index getters used by
+ * {@link VariableRowMapper} and {@code wasNull}.
+ */
+final class StubResultSet {
+
+    private StubResultSet() {
+    }
+
+    static ResultSet of(Map<String, Object> row) {
+        List<String> columns = new ArrayList<>(row.keySet());
+        Object[] values = columns.stream().map(row::get).toArray();
+        Object[] last = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(
+                StubResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("wasNull")) {
+                        return last[0] == null;
+                    }
+                    if (name.equals("findColumn")) {
+                        int index = columns.indexOf((String) args[0]);
+                        if (index < 0) {
+                            throw new java.sql.SQLException("No column " + args[0]);
+                        }
+                        return index + 1;
+                    }
+                    if (!name.startsWith("get") || args == null || !(args[0] instanceof Integer column)) {
+                        throw new UnsupportedOperationException(name);
+                    }
+                    Object value = values[column - 1];
+                    last[0] = value;
+                    return switch (name) {
+                        case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                        case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                        case "getBoolean" -> value != null && (Boolean) value;
+                        default -> value;
+                    };
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.evs.repository;
+
+import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
+import com.evs.model.VariableType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric feed ingestion through {@code copyBatch}: {@link Variable} records versus a columnar
+ * {@link VariableBatch}, including the cost of building the input. Run with {@code -prof gc}
+ * to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableBatchIngestBenchmark {
+
+    @Param({"1000", "10000"})
+    public int batchSize;
+
+    private BenchmarkDatabase db;
+    private String[] names;
+    private VariableBatch columnar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = new BenchmarkDatabase();
+        names = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            names[i] = "metric_" + (i % 50);
+        }
+        columnar = new VariableBatch(db.entityId, batchSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        db.deleteVariables();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public long copyVariables() {
+        List<Variable> variables = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            variables.add(Variable.builder()
+                    .entityId(db.entityId)
+                    .entityInstanceId(db.instanceId)
+                    .variableName(names[i])
+                    .variableType(VariableType.FLOAT)
+                    .value(i * 0.5)
+                    .registeredAt(db.registeredAt)
+                    .build());
+        }
+        return db.repository.copyBatch(variables);
+    }
+
+    @Benchmark
+    public long copyColumnarBatch() {
+        columnar.clear();
+        columnar.at(db.registeredAt);
+        for (int i = 0; i < batchSize; i++) {
+            columnar.addDouble(db.instanceId, names[i], i * 0.5);
+        }
+        return db.repository.copyBatch(columnar);
+    }
+}
@@ -0,0 +1,62 @@
+package com.evs.repository;
+
+import com.evs.model.Variable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code saveBatch} against PostgreSQL across batch sizes and type mixes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableBatchWriteBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    /** {@code single}: all STRING; {@code mixed}: five types, one statement per type. */
+    @Param({"single", "mixed"})
+    public String typeMix;
+
+    private BenchmarkDatabase db;
+    private List<Variable> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = new BenchmarkDatabase();
+        batch = db.variables(batchSize, typeMix.equals("mixed"));
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        db.deleteVariables();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public List<Variable> saveBatch() {
+        return db.repository.saveBatch(batch);
+    }
+}
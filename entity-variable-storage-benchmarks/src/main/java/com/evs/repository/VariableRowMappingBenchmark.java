@@ -0,0 +1,79 @@
+package com.evs.repository;
+
+import com.evs.codec.ValueCompression;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one result row into a {@link Variable} with {@link VariableRowMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableRowMappingBenchmark {
+
+    @Param({"STRING", "INTEGER", "FLOAT", "BOOLEAN", "JSON", "TIMESTAMP", "UUID"})
+    public VariableType type;
+
+    private VariableRowMapper mapper;
+
+    @Setup
+    public void setUp() throws SQLException {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", 42L);
+        columns.put("entity_id", UUID.randomUUID());
+        columns.put("entity_instance_id", UUID.randomUUID());
+        columns.put("variable_name", "benchmark_variable");
+        columns.put("variable_type", type.name());
+        columns.put("is_indexed", false);
+        columns.put("is_sensitive", false);
+        columns.put("is_encrypted", false);
+        columns.put("registered_at", now);
+        columns.put("created_at", now);
+        columns.put("updated_at", now);
+        columns.put("created_by", null);
+        columns.put("value_codec", ValueCompression.UNCOMPRESSED);
+        for (VariableType column : VariableType.values()) {
+            columns.put(column.getColumnName(), null);
+        }
+        columns.put(type.getColumnName(), switch (type) {
+            case STRING -> "some string value";
+            case INTEGER -> 123456789L;
+            case FLOAT -> 3.14159;
+            case BOOLEAN -> true;
+            case JSON -> "{\"plan\":\"gold\",\"seats\":12,\"features\":[\"a\",\"b\"]}";
+            case TIMESTAMP -> now;
+            case BINARY -> new byte[64];
+            case UUID -> UUID.randomUUID();
+        });
+        mapper = new VariableRowMapper(StubResultSet.of(columns), ValueCompression.NONE);
+    }
+
+    @Benchmark
+    public Variable mapRow() throws SQLException {
+        return mapper.map();
+    }
+}
@@ -0,0 +1,67 @@
+package com.evs.repository;
+
+import com.evs.model.TimeRange;
+import com.evs.model.Variable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end single-row {@code save} and per-instance reads against PostgreSQL.
+ * The instance read benchmarks run over {@value #INSTANCE_VARIABLES} variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableSingleRowBenchmark {
+
+    private static final int INSTANCE_VARIABLES = 50;
+
+    private BenchmarkDatabase db;
+    private Variable single;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = new BenchmarkDatabase();
+        db.repository.saveBatch(db.variables(INSTANCE_VARIABLES, true));
+        single = Variable.builder()
+                .from(db.variables(1, false).getFirst())
+                .variableName("single_save")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Variable save() {
+        return db.repository.save(single);
+    }
+
+    @Benchmark
+    public List<Variable> findByEntityInstanceId() {
+        return db.repository.findByEntityInstanceId(db.instanceId);
+    }
+
+    @Benchmark
+    public List<Variable> findByEntityInstanceIdPruned() {
+        return db.repository.findByEntityInstanceId(db.entityId, db.instanceId, TimeRange.all());
+    }
+}
@@ -0,0 +1,61 @@
+package com.evs.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of JSON variable values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilBenchmark {
+
+    /** Number of top-level keys in the document. */
+    @Param({"4", "64"})
+    public int keys;
+
+    private Map<String, Object> document;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        document = new LinkedHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            switch (i % 4) {
+                case 0 -> document.put("name" + i, "value-" + i);
+                case 1 -> document.put("count" + i, i * 31L);
+                case 2 -> document.put("tags" + i, List.of("a", "b", "c"));
+                default -> document.put("nested" + i, Map.of("enabled", true, "ratio", 0.5));
+            }
+        }
+        json = JsonUtil.toJson(document);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtil.toJson(document);
+    }
+
+    @Benchmark
+    public Map<String, Object> fromJson() {
+        return JsonUtil.fromJson(json);
+    }
+}
@@ -0,0 +1,105 @@
+package com.evs.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link ValueCodec} backed by the JDK's zlib {@link Deflater}. Encoded values are the original
+ * length as a 4-byte big-endian prefix followed by a zlib stream, so decoding allocates the
+ * result once. The prefix is checked against what the stream could possibly hold before that
+ * allocation, so a corrupt value cannot request an arbitrarily large buffer.
+ */
+public final class DeflateValueCodec implements ValueCodec {
+
+    public static final short ID = 1;
+
+    /** Upper bound of deflate's compression ratio: one 258-byte match per ~2 bits of input. */
+    static final int MAX_EXPANSION = 1032;
+
+    /** Largest value a {@code bytea} column can hold. */
+    static final int MAX_DECODED_SIZE = 1 << 30;
+
+    private final int level;
+
+    /**
+     * Uses {@link Deflater#BEST_SPEED}: most of the gain on repetitive data such as logs at a
+     * fraction of the CPU of the higher levels.
+     */
+    public DeflateValueCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level {@link Deflater} compression level, 0-9
+     */
+    public DeflateValueCodec(int level) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid deflate level: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public short id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(byte[] value) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+            byte[] buffer = new byte[4 + value.length + value.length / 1000 + 64];
+            ByteBuffer.wrap(buffer).putInt(value.length);
+            int length = 4;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded) {
+        if (encoded.length < 4) {
+            throw new IllegalArgumentException("Truncated deflate value");
+        }
+        int size = ByteBuffer.wrap(encoded).getInt();
+        if (size < 0 || size > MAX_DECODED_SIZE || size > (long) (encoded.length - 4) * MAX_EXPANSION) {
+            throw new IllegalArgumentException("Corrupt deflate value");
+        }
+        byte[] value = new byte[size];
+        if (size == 0) {
+            return value;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, 4, encoded.length - 4);
+            int length = 0;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(value, length, value.length - length);
+                if (n == 0 && (length == value.length || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Corrupt deflate value");
+                }
+                length += n;
+            }
+            if (length != value.length) {
+                throw new IllegalArgumentException("Corrupt deflate value");
+            }
+            return value;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt deflate value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
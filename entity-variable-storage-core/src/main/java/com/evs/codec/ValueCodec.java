@@ -0,0 +1,19 @@
+package com.evs.codec;
+
+/**
+ * Compression codec for stored variable values. The codec's {@link #id()} is written to the
+ * {@code value_codec} column next to each compressed value and selects the codec again on read,
+ * so an id must never be reused for a different format.
+ */
+public interface ValueCodec {
+
+    /**
+     * Stored in {@code value_codec}; {@code 0} marks uncompressed values and {@code 1} is taken by
+     * {@link DeflateValueCodec}.
+     */
+    short id();
+
+    byte[] encode(byte[] value);
+
+    byte[] decode(byte[] encoded);
+}
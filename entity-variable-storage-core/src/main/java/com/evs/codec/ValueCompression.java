@@ -0,0 +1,70 @@
+package com.evs.codec;
+
+import com.evs.config.EVSConfig;
+import com.evs.exception.EVSException;
+
+/**
+ * Compression policy for {@code value_binary}. On write, values of at least {@code threshold}
+ * bytes are encoded with the configured codec, unless that does not make them smaller; on read,
+ * values are decoded by the codec id stored in {@code value_codec}. Rows written with
+ * {@link DeflateValueCodec} stay readable after switching to another codec.
+ */
+public final class ValueCompression {
+
+    /** {@code value_codec} of values stored as supplied. */
+    public static final short UNCOMPRESSED = 0;
+
+    /** Never compresses; still decodes values written with {@link DeflateValueCodec}. */
+    public static final ValueCompression NONE = new ValueCompression(0, new DeflateValueCodec());
+
+    private static final ValueCodec DEFLATE = new DeflateValueCodec();
+
+    private final int threshold;
+    private final ValueCodec codec;
+
+    /**
+     * @param threshold minimum value size in bytes to compress; {@code 0} disables compression
+     */
+    public ValueCompression(int threshold, ValueCodec codec) {
+        if (codec.id() == UNCOMPRESSED) {
+            throw new IllegalArgumentException("Codec id " + UNCOMPRESSED + " is reserved for uncompressed values");
+        }
+        this.threshold = threshold;
+        this.codec = codec;
+    }
+
+    public static ValueCompression from(EVSConfig config) {
+        return new ValueCompression(config.getValueCompressionThreshold(), config.getValueCodec());
+    }
+
+    /**
+     * A value as it is written: {@code bytes} go to {@code value_binary}, {@code codec} to
+     * {@code value_codec}.
+     */
+    public record Encoded(byte[] bytes, short codec) {
+    }
+
+    public Encoded encode(byte[] value) {
+        if (value == null || threshold <= 0 || value.length < threshold) {
+            return new Encoded(value, UNCOMPRESSED);
+        }
+        byte[] encoded = codec.encode(value);
+        return encoded.length < value.length ? new Encoded(encoded, codec.id()) : new Encoded(value, UNCOMPRESSED);
+    }
+
+    /**
+     * @throws EVSException if {@code codecId} belongs to no known codec
+     */
+    public byte[] decode(short codecId, byte[] stored) {
+        if (codecId == UNCOMPRESSED || stored == null) {
+            return stored;
+        }
+        if (codecId == codec.id()) {
+            return codec.decode(stored);
+        }
+        if (codecId == DeflateValueCodec.ID) {
+            return DEFLATE.decode(stored);
+        }
+        throw new EVSException("Unknown value codec: " + codecId);
+    }
+}
@@ -0,0 +1,11 @@
+package com.evs.config;
+
+/**
+ * Strategy used by {@link com.evs.service.VariableService#ingestVariables} for bulk writes.
+ */
+public enum BatchInsertMode {
+    /** Multi-row {@code INSERT ... RETURNING id}; generated ids are returned. */
+    INSERT,
+    /** Binary {@code COPY ... FROM STDIN}; fastest, but generated ids are not returned. */
+    COPY
+}
@@ -1,5 +1,8 @@
 package com.evs.config;
 
+import com.evs.codec.DeflateValueCodec;
+import com.evs.codec.ValueCodec;
+import com.evs.metrics.EVSMetrics;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.flywaydb.core.Flyway;
@@ -11,6 +14,9 @@ import javax.sql.DataSource;
  */
 public class EVSConfig {
 
+    /** Future monthly partitions kept ahead of the current month unless configured otherwise. */
+    public static final int DEFAULT_PARTITION_MONTHS_AHEAD = 3;
+
     private String jdbcUrl;
     private String username;
     private String password;
@@ -21,6 +27,33 @@ public class EVSConfig {
     private long maxLifetime = 1800000;
     private boolean autoMigrate = true;
     private String migrationLocations = "classpath:db/migration";
+    private BatchInsertMode batchInsertMode = BatchInsertMode.INSERT;
+    private boolean partitionMaintenanceEnabled = false;
+    private int partitionMonthsAhead = DEFAULT_PARTITION_MONTHS_AHEAD;
+    private long partitionMaintenanceInterval = 3600000;
+    private boolean entityCacheEnabled = true;
+    private long entityCacheMaxSize = 10000;
+    private long entityCacheTtl = 300000;
+    private boolean entityCachePreload = false;
+    private boolean variableCacheEnabled = false;
+    private long variableCacheMaxWeight = 100000;
+    private long variableCacheTtl = 60000;
+    private int writeBufferMaxBatchSize = 1000;
+    private long writeBufferFlushInterval = 100;
+    private int writeBufferCapacity = 100000;
+    private WriteBufferBackpressure writeBufferBackpressure = WriteBufferBackpressure.BLOCK;
+    private int writeBufferWriters = 0;
+    private int streamFetchSize = 1000;
+    private boolean variableIndexingEnabled = true;
+    private boolean jdbcReWriteBatchedInserts = true;
+    private int jdbcPrepareThreshold = 5;
+    private int jdbcPreparedStatementCacheQueries = 256;
+    private int jdbcDefaultRowFetchSize = 0;
+    private boolean jdbcBinaryTransfer = true;
+    private TransactionIsolation sessionIsolation = TransactionIsolation.READ_COMMITTED;
+    private int valueCompressionThreshold = 0;
+    private ValueCodec valueCodec = new DeflateValueCodec();
+    private EVSMetrics metrics = EVSMetrics.NOOP;
 
     public DataSource createDataSource() {
         HikariConfig config = new HikariConfig();
@@ -32,6 +65,12 @@ public class EVSConfig {
         config.setConnectionTimeout(connectionTimeout);
         config.setIdleTimeout(idleTimeout);
         config.setMaxLifetime(maxLifetime);
+        config.addDataSourceProperty("reWriteBatchedInserts", jdbcReWriteBatchedInserts);
+        config.addDataSourceProperty("prepareThreshold", jdbcPrepareThreshold);
+        config.addDataSourceProperty("preparedStatementCacheQueries", jdbcPreparedStatementCacheQueries);
+        config.addDataSourceProperty("defaultRowFetchSize", jdbcDefaultRowFetchSize);
+        config.addDataSourceProperty("binaryTransfer", jdbcBinaryTransfer);
+        metrics.bindConnectionPool(config);
 
         return new HikariDataSource(config);
     }
@@ -125,4 +164,257 @@ public class EVSConfig {
     public void setMigrationLocations(String migrationLocations) {
         this.migrationLocations = migrationLocations;
     }
-}
+
+    public BatchInsertMode getBatchInsertMode() {
+        return batchInsertMode;
+    }
+
+    public void setBatchInsertMode(BatchInsertMode batchInsertMode) {
+        this.batchInsertMode = batchInsertMode;
+    }
+
+    /**
+     * Whether {@link EVSFactory} starts a background thread that periodically takes an advisory
+     * lock and creates upcoming monthly partitions (DDL). Off by default; without it, partitions
+     * beyond {@link #getPartitionMonthsAhead()} must be created by calling
+     * {@code PartitionManager.maintainPartitions} on a schedule of your own.
+     */
+    public boolean isPartitionMaintenanceEnabled() {
+        return partitionMaintenanceEnabled;
+    }
+
+    public void setPartitionMaintenanceEnabled(boolean partitionMaintenanceEnabled) {
+        this.partitionMaintenanceEnabled = partitionMaintenanceEnabled;
+    }
+
+    public int getPartitionMonthsAhead() {
+        return partitionMonthsAhead;
+    }
+
+    public void setPartitionMonthsAhead(int partitionMonthsAhead) {
+        this.partitionMonthsAhead = partitionMonthsAhead;
+    }
+
+    public long getPartitionMaintenanceInterval() {
+        return partitionMaintenanceInterval;
+    }
+
+    public void setPartitionMaintenanceInterval(long partitionMaintenanceInterval) {
+        this.partitionMaintenanceInterval = partitionMaintenanceInterval;
+    }
+
+    public boolean isEntityCacheEnabled() {
+        return entityCacheEnabled;
+    }
+
+    public void setEntityCacheEnabled(boolean entityCacheEnabled) {
+        this.entityCacheEnabled = entityCacheEnabled;
+    }
+
+    public long getEntityCacheMaxSize() {
+        return entityCacheMaxSize;
+    }
+
+    public void setEntityCacheMaxSize(long entityCacheMaxSize) {
+        this.entityCacheMaxSize = entityCacheMaxSize;
+    }
+
+    public long getEntityCacheTtl() {
+        return entityCacheTtl;
+    }
+
+    public void setEntityCacheTtl(long entityCacheTtl) {
+        this.entityCacheTtl = entityCacheTtl;
+    }
+
+    public boolean isEntityCachePreload() {
+        return entityCachePreload;
+    }
+
+    public void setEntityCachePreload(boolean entityCachePreload) {
+        this.entityCachePreload = entityCachePreload;
+    }
+
+    public boolean isVariableCacheEnabled() {
+        return variableCacheEnabled;
+    }
+
+    public void setVariableCacheEnabled(boolean variableCacheEnabled) {
+        this.variableCacheEnabled = variableCacheEnabled;
+    }
+
+    public long getVariableCacheMaxWeight() {
+        return variableCacheMaxWeight;
+    }
+
+    public void setVariableCacheMaxWeight(long variableCacheMaxWeight) {
+        this.variableCacheMaxWeight = variableCacheMaxWeight;
+    }
+
+    public long getVariableCacheTtl() {
+        return variableCacheTtl;
+    }
+
+    public void setVariableCacheTtl(long variableCacheTtl) {
+        this.variableCacheTtl = variableCacheTtl;
+    }
+
+    public int getWriteBufferMaxBatchSize() {
+        return writeBufferMaxBatchSize;
+    }
+
+    public void setWriteBufferMaxBatchSize(int writeBufferMaxBatchSize) {
+        this.writeBufferMaxBatchSize = writeBufferMaxBatchSize;
+    }
+
+    public long getWriteBufferFlushInterval() {
+        return writeBufferFlushInterval;
+    }
+
+    public void setWriteBufferFlushInterval(long writeBufferFlushInterval) {
+        this.writeBufferFlushInterval = writeBufferFlushInterval;
+    }
+
+    public int getWriteBufferCapacity() {
+        return writeBufferCapacity;
+    }
+
+    public void setWriteBufferCapacity(int writeBufferCapacity) {
+        this.writeBufferCapacity = writeBufferCapacity;
+    }
+
+    public WriteBufferBackpressure getWriteBufferBackpressure() {
+        return writeBufferBackpressure;
+    }
+
+    public void setWriteBufferBackpressure(WriteBufferBackpressure writeBufferBackpressure) {
+        this.writeBufferBackpressure = writeBufferBackpressure;
+    }
+
+    /**
+     * @return number of threads writing flushed batches in parallel; 0 uses the connection pool size
+     */
+    public int getWriteBufferWriters() {
+        return writeBufferWriters;
+    }
+
+    public void setWriteBufferWriters(int writeBufferWriters) {
+        this.writeBufferWriters = writeBufferWriters;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public boolean isVariableIndexingEnabled() {
+        return variableIndexingEnabled;
+    }
+
+    public void setVariableIndexingEnabled(boolean variableIndexingEnabled) {
+        this.variableIndexingEnabled = variableIndexingEnabled;
+    }
+
+    /**
+     * pgjdbc {@code reWriteBatchedInserts}: collapses {@code addBatch} INSERTs into multi-row statements.
+     */
+    public boolean isJdbcReWriteBatchedInserts() {
+        return jdbcReWriteBatchedInserts;
+    }
+
+    public void setJdbcReWriteBatchedInserts(boolean jdbcReWriteBatchedInserts) {
+        this.jdbcReWriteBatchedInserts = jdbcReWriteBatchedInserts;
+    }
+
+    /**
+     * pgjdbc {@code prepareThreshold}: executions of a statement before it switches to a
+     * named server-side prepared statement.
+     */
+    public int getJdbcPrepareThreshold() {
+        return jdbcPrepareThreshold;
+    }
+
+    public void setJdbcPrepareThreshold(int jdbcPrepareThreshold) {
+        this.jdbcPrepareThreshold = jdbcPrepareThreshold;
+    }
+
+    /**
+     * pgjdbc {@code preparedStatementCacheQueries}: per-connection cache size. Should cover the
+     * statements of {@code VariableSqlTemplates} so batch writes keep their server-side plans.
+     */
+    public int getJdbcPreparedStatementCacheQueries() {
+        return jdbcPreparedStatementCacheQueries;
+    }
+
+    public void setJdbcPreparedStatementCacheQueries(int jdbcPreparedStatementCacheQueries) {
+        this.jdbcPreparedStatementCacheQueries = jdbcPreparedStatementCacheQueries;
+    }
+
+    /**
+     * pgjdbc {@code defaultRowFetchSize}; {@code 0} fetches whole result sets. Streaming reads
+     * use {@link #getStreamFetchSize()} instead.
+     */
+    public int getJdbcDefaultRowFetchSize() {
+        return jdbcDefaultRowFetchSize;
+    }
+
+    public void setJdbcDefaultRowFetchSize(int jdbcDefaultRowFetchSize) {
+        this.jdbcDefaultRowFetchSize = jdbcDefaultRowFetchSize;
+    }
+
+    public boolean isJdbcBinaryTransfer() {
+        return jdbcBinaryTransfer;
+    }
+
+    public void setJdbcBinaryTransfer(boolean jdbcBinaryTransfer) {
+        this.jdbcBinaryTransfer = jdbcBinaryTransfer;
+    }
+
+    public TransactionIsolation getSessionIsolation() {
+        return sessionIsolation;
+    }
+
+    public void setSessionIsolation(TransactionIsolation sessionIsolation) {
+        this.sessionIsolation = sessionIsolation;
+    }
+
+    /**
+     * Binary values of at least this many bytes are compressed with {@link #getValueCodec()}
+     * before they are written; {@code 0} disables compression. Compressed values are decompressed
+     * transparently on read whatever this is set to.
+     */
+    public int getValueCompressionThreshold() {
+        return valueCompressionThreshold;
+    }
+
+    public void setValueCompressionThreshold(int valueCompressionThreshold) {
+        this.valueCompressionThreshold = valueCompressionThreshold;
+    }
+
+    public ValueCodec getValueCodec() {
+        return valueCodec;
+    }
+
+    /**
+     * Codec for values above {@link #getValueCompressionThreshold()}; defaults to
+     * {@link DeflateValueCodec}.
+     */
+    public void setValueCodec(ValueCodec valueCodec) {
+        this.valueCodec = valueCodec != null ? valueCodec : new DeflateValueCodec();
+    }
+
+    public EVSMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Instrumentation for repositories, JSON conversion and the connection pool created by
+     * {@link #createDataSource()}, e.g. {@code new MicrometerEVSMetrics(registry)}.
+     */
+    public void setMetrics(EVSMetrics metrics) {
+        this.metrics = metrics != null ? metrics : EVSMetrics.NOOP;
+    }
+}
\ No newline at end of file
@@ -1,45 +1,114 @@
 package com.evs.config;
 
+import com.evs.exception.EVSException;
 import com.evs.repository.EntityInstanceRepository;
 import com.evs.repository.EntityRepository;
 import com.evs.repository.VariableRepository;
+import com.evs.service.AsyncEntityInstanceService;
+import com.evs.service.AsyncEntityService;
+import com.evs.service.AsyncVariableService;
+import com.evs.service.EVSAsyncExecutor;
+import com.evs.service.EntityCatalogCache;
 import com.evs.service.EntityInstanceService;
 import com.evs.service.EntityService;
+import com.evs.service.InstanceEntityCache;
+import com.evs.service.PartitionMaintenanceScheduler;
 import com.evs.service.PartitionManager;
+import com.evs.service.VariableIndexManager;
 import com.evs.service.VariableService;
+import com.evs.service.VariableSnapshotCache;
+import com.evs.service.VariableWriteBuffer;
+import com.evs.session.EVSSession;
+import com.zaxxer.hikari.HikariDataSource;
 
 import javax.sql.DataSource;
 
 /**
  * Factory for creating EVS components. Use this for standalone configuration.
+ * <p>
+ * Background partition maintenance only runs when enabled with
+ * {@link EVSConfig#setPartitionMaintenanceEnabled(boolean)}. Closing the factory stops it and,
+ * if the factory created the connection pool itself, closes the pool.
  */
-public class EVSFactory {
+public class EVSFactory implements AutoCloseable {
 
+    private final EVSConfig config;
     private final DataSource dataSource;
+    private final boolean ownsDataSource;
     private final EntityRepository entityRepository;
     private final EntityInstanceRepository entityInstanceRepository;
     private final VariableRepository variableRepository;
     private final PartitionManager partitionManager;
+    private final PartitionMaintenanceScheduler partitionMaintenanceScheduler;
+    private final EntityCatalogCache entityCatalogCache;
+    private final VariableSnapshotCache variableSnapshotCache;
+    private final InstanceEntityCache instanceEntityCache = new InstanceEntityCache();
+    private final VariableIndexManager variableIndexManager;
+    private VariableWriteBuffer variableWriteBuffer;
+    private EVSAsyncExecutor asyncExecutor;
 
     public EVSFactory(EVSConfig config) {
-        this.dataSource = config.createDataSource();
-        config.runMigrations(dataSource);
-
-        this.entityRepository = new EntityRepository(dataSource);
-        this.entityInstanceRepository = new EntityInstanceRepository(dataSource);
-        this.variableRepository = new VariableRepository(dataSource);
-        this.partitionManager = new PartitionManager(dataSource);
+        this(createMigratedDataSource(config), config, true);
     }
 
     /**
      * Create factory with existing DataSource (e.g. from Spring). Migrations are skipped.
      */
     public EVSFactory(DataSource dataSource) {
+        this(dataSource, new EVSConfig());
+    }
+
+    /**
+     * Create factory with existing DataSource and EVS tuning options. Connection settings in
+     * {@code config} are ignored and migrations are skipped.
+     */
+    public EVSFactory(DataSource dataSource, EVSConfig config) {
+        this(dataSource, config, false);
+    }
+
+    private EVSFactory(DataSource dataSource, EVSConfig config, boolean ownsDataSource) {
+        this.config = config;
         this.dataSource = dataSource;
-        this.entityRepository = new EntityRepository(dataSource);
-        this.entityInstanceRepository = new EntityInstanceRepository(dataSource);
-        this.variableRepository = new VariableRepository(dataSource);
-        this.partitionManager = new PartitionManager(dataSource);
+        this.ownsDataSource = ownsDataSource;
+        this.entityRepository = new EntityRepository(dataSource, config.getMetrics());
+        this.entityInstanceRepository = new EntityInstanceRepository(dataSource, config);
+        this.variableRepository = new VariableRepository(dataSource, config);
+        this.partitionManager = new PartitionManager(dataSource, config.getPartitionMonthsAhead());
+        this.entityCatalogCache = config.isEntityCacheEnabled()
+                ? new EntityCatalogCache(config.getEntityCacheMaxSize(), config.getEntityCacheTtl())
+                : null;
+        this.variableSnapshotCache = config.isVariableCacheEnabled()
+                ? new VariableSnapshotCache(config.getVariableCacheMaxWeight(), config.getVariableCacheTtl())
+                : null;
+
+        this.variableIndexManager = config.isVariableIndexingEnabled()
+                ? new VariableIndexManager(dataSource, entityRepository)
+                : null;
+
+        // Preload through the collaborators rather than entityService(): an overridable call
+        // here would run against a partially constructed factory.
+        if (config.isEntityCachePreload() && entityCatalogCache != null) {
+            entityCatalogCache.replaceAll(entityRepository.findAll());
+        }
+
+        if (config.isPartitionMaintenanceEnabled()) {
+            this.partitionMaintenanceScheduler = new PartitionMaintenanceScheduler(
+                    partitionManager, variableIndexManager,
+                    config.getPartitionMonthsAhead(), config.getPartitionMaintenanceInterval());
+            this.partitionMaintenanceScheduler.start();
+        } else {
+            this.partitionMaintenanceScheduler = null;
+        }
+    }
+
+    private static DataSource createMigratedDataSource(EVSConfig config) {
+        DataSource dataSource = config.createDataSource();
+        config.runMigrations(dataSource);
+        return dataSource;
+    }
+
+    public EVSConfig getConfig() {
+        return config;
     }
 
     public DataSource getDataSource() {
@@ -47,7 +116,7 @@ public class EVSFactory {
     }
 
     public EntityService entityService() {
-        return new EntityService(entityRepository, partitionManager);
+        return new EntityService(entityRepository, partitionManager, entityCatalogCache, variableIndexManager);
     }
 
     public EntityInstanceService entityInstanceService() {
@@ -55,10 +124,109 @@ public class EVSFactory {
     }
 
     public VariableService variableService() {
-        return new VariableService(variableRepository);
+        return new VariableService(variableRepository, config.getBatchInsertMode(), variableSnapshotCache,
+                instanceEntityCache);
+    }
+
+    /**
+     * Returns the shared write-behind buffer, creating it on first use. It is flushed and
+     * stopped when the factory is closed.
+     */
+    public synchronized VariableWriteBuffer variableWriteBuffer() {
+        if (variableWriteBuffer == null) {
+            variableWriteBuffer = new VariableWriteBuffer(
+                    variableService(),
+                    config.getWriteBufferMaxBatchSize(),
+                    config.getWriteBufferFlushInterval(),
+                    config.getWriteBufferCapacity(),
+                    config.getWriteBufferBackpressure(),
+                    config.getWriteBufferWriters() > 0 ? config.getWriteBufferWriters() : poolSize());
+        }
+        return variableWriteBuffer;
+    }
+
+    /**
+     * Returns the shared virtual-thread executor used by the async services. Its concurrency
+     * limit equals the connection pool size.
+     */
+    public synchronized EVSAsyncExecutor asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = new EVSAsyncExecutor(poolSize());
+        }
+        return asyncExecutor;
+    }
+
+    private int poolSize() {
+        return dataSource instanceof HikariDataSource hikari
+                ? hikari.getMaximumPoolSize()
+                : config.getMaximumPoolSize();
+    }
+
+    public AsyncEntityService asyncEntityService() {
+        return new AsyncEntityService(entityService(), asyncExecutor());
+    }
+
+    public AsyncEntityInstanceService asyncEntityInstanceService() {
+        return new AsyncEntityInstanceService(entityInstanceService(), asyncExecutor());
+    }
+
+    public AsyncVariableService asyncVariableService() {
+        return new AsyncVariableService(variableService(), asyncExecutor());
+    }
+
+    /**
+     * Opens a unit of work on one connection and transaction, at the configured
+     * {@link EVSConfig#getSessionIsolation() isolation}. Use with try-with-resources and call
+     * {@link EVSSession#commit()} before it closes.
+     */
+    public EVSSession openSession() {
+        return openSession(config.getSessionIsolation());
+    }
+
+    public EVSSession openSession(TransactionIsolation isolation) {
+        return EVSSession.open(dataSource, config, isolation, variableSnapshotCache);
     }
 
     public PartitionManager partitionManager() {
         return partitionManager;
     }
+
+    /**
+     * @return the index manager, or {@code null} if variable indexing is disabled
+     */
+    public VariableIndexManager variableIndexManager() {
+        return variableIndexManager;
+    }
+
+    /**
+     * @return the background maintenance scheduler, or {@code null} if maintenance is disabled
+     */
+    public PartitionMaintenanceScheduler partitionMaintenanceScheduler() {
+        return partitionMaintenanceScheduler;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (variableWriteBuffer != null) {
+                variableWriteBuffer.close();
+            }
+            if (asyncExecutor != null) {
+                asyncExecutor.close();
+            }
+        }
+        if (partitionMaintenanceScheduler != null) {
+            partitionMaintenanceScheduler.close();
+        }
+        if (variableIndexManager != null) {
+            variableIndexManager.close();
+        }
+        if (ownsDataSource && dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new EVSException("Failed to close data source", e);
+            }
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.evs.config;
+
+import java.sql.Connection;
+
+/**
+ * Isolation level of an {@link com.evs.session.EVSSession} transaction.
+ */
+public enum TransactionIsolation {
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    private final int jdbcLevel;
+
+    TransactionIsolation(int jdbcLevel) {
+        this.jdbcLevel = jdbcLevel;
+    }
+
+    /**
+     * @return the matching {@code Connection.TRANSACTION_*} constant
+     */
+    public int getJdbcLevel() {
+        return jdbcLevel;
+    }
+}
@@ -0,0 +1,11 @@
+package com.evs.config;
+
+/**
+ * What {@link com.evs.service.VariableWriteBuffer} does when it is full.
+ */
+public enum WriteBufferBackpressure {
+    /** Block the producer until a flush frees space. */
+    BLOCK,
+    /** Reject the write immediately with a failed future. */
+    DROP
+}
@@ -0,0 +1,61 @@
+package com.evs.metrics;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation hooks for repository calls, batch sizes, JSON (de)serialization and the
+ * connection pool. All methods default to doing nothing; {@link #NOOP} is used when no
+ * metrics backend is configured.
+ *
+ * @see MicrometerEVSMetrics
+ */
+public interface EVSMetrics {
+
+    EVSMetrics NOOP = new EVSMetrics() {
+        @Override
+        public <T> T timeRepositoryCall(String repository, String operation, Supplier<T> call) {
+            return call.get();
+        }
+    };
+
+    /**
+     * @param error the failure, or {@code null} if the call succeeded
+     */
+    default void recordRepositoryCall(String repository, String operation, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Records the number of rows written by one batch call.
+     */
+    default void recordBatchRows(String operation, int rows) {
+    }
+
+    /**
+     * @param direction {@code serialize} or {@code deserialize}
+     * @param error     the failure, or {@code null} on success
+     */
+    default void recordJson(String direction, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called with the pool configuration before {@link com.evs.config.EVSConfig#createDataSource()}
+     * builds the pool, so pool metrics can be registered.
+     */
+    default void bindConnectionPool(HikariConfig hikariConfig) {
+    }
+
+    default <T> T timeRepositoryCall(String repository, String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            recordRepositoryCall(repository, operation, System.nanoTime() - start, error);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.evs.metrics;
+
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EVSMetrics} backed by a Micrometer {@link MeterRegistry}. Micrometer is an optional
+ * dependency; this class may only be loaded when it is on the classpath.
+ * <p>
+ * Meters:
+ * <ul>
+ *   <li>{@code evs.repository.calls} - timer (with histogram) tagged {@code repository},
+ *       {@code operation}, {@code outcome} and {@code exception}</li>
+ *   <li>{@code evs.batch.rows} - distribution of rows per batch call, tagged {@code operation}</li>
+ *   <li>{@code evs.json.serialization} - timer tagged {@code direction}</li>
+ *   <li>{@code evs.json.errors} - counter tagged {@code direction} and {@code exception}</li>
+ *   <li>HikariCP's own {@code hikaricp.*} pool meters</li>
+ * </ul>
+ */
+public class MicrometerEVSMetrics implements EVSMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    /*
+     * Meters are built and registered once per tag combination; the hot path only does a map lookup.
+     */
+    private final Map<RepositoryCallKey, Timer> repositoryCalls = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> batchRows = new ConcurrentHashMap<>();
+    private final Map<String, Timer> jsonTimers = new ConcurrentHashMap<>();
+    private final Map<JsonErrorKey, Counter> jsonErrors = new ConcurrentHashMap<>();
+
+    public MicrometerEVSMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordRepositoryCall(String repository, String operation, long durationNanos, Throwable error) {
+        RepositoryCallKey key = new RepositoryCallKey(repository, operation, exceptionTag(error));
+        repositoryCalls.computeIfAbsent(key, this::repositoryCallTimer)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordBatchRows(String operation, int rows) {
+        batchRows.computeIfAbsent(operation, this::batchRowsSummary).record(rows);
+    }
+
+    @Override
+    public void recordJson(String direction, long durationNanos, Throwable error) {
+        jsonTimers.computeIfAbsent(direction, this::jsonTimer).record(durationNanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            jsonErrors.computeIfAbsent(new JsonErrorKey(direction, exceptionTag(error)), this::jsonErrorCounter)
+                    .increment();
+        }
+    }
+
+    @Override
+    public void bindConnectionPool(HikariConfig hikariConfig) {
+        if (hikariConfig.getPoolName() == null) {
+            hikariConfig.setPoolName("evs");
+        }
+        hikariConfig.setMetricRegistry(registry);
+    }
+
+    private Timer repositoryCallTimer(RepositoryCallKey key) {
+        return Timer.builder("evs.repository.calls")
+                .description("Latency of EVS repository operations")
+                .tag("repository", key.repository())
+                .tag("operation", key.operation())
+                .tag("outcome", NONE.equals(key.exception()) ? "success" : "error")
+                .tag("exception", key.exception())
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private DistributionSummary batchRowsSummary(String operation) {
+        return DistributionSummary.builder("evs.batch.rows")
+                .description("Rows per EVS batch write")
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer jsonTimer(String direction) {
+        return Timer.builder("evs.json.serialization")
+                .description("Time spent converting JSON values")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    private Counter jsonErrorCounter(JsonErrorKey key) {
+        return Counter.builder("evs.json.errors")
+                .description("JSON conversion failures")
+                .tag("direction", key.direction())
+                .tag("exception", key.exception())
+                .register(registry);
+    }
+
+    private static String exceptionTag(Throwable error) {
+        if (error == null) {
+            return NONE;
+        }
+        Throwable root = error.getCause() != null ? error.getCause() : error;
+        return root.getClass().getSimpleName();
+    }
+
+    private record RepositoryCallKey(String repository, String operation, String exception) {
+    }
+
+    private record JsonErrorKey(String direction, String exception) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.evs.model;
+
+/**
+ * How the points of one history bucket are reduced to a single value.
+ */
+public enum Downsampling {
+    /** Value of the latest row in the bucket. */
+    LAST,
+    AVG,
+    MIN,
+    MAX
+}
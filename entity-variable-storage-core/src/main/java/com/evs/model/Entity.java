@@ -1,5 +1,7 @@
 package com.evs.model;
 
+import com.evs.util.LazyJsonMap;
+
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
@@ -57,12 +59,12 @@ public record Entity(
         }
 
         public Builder schemaDefinition(Map<String, Object> schemaDefinition) {
-            this.schemaDefinition = schemaDefinition != null ? Map.copyOf(schemaDefinition) : null;
+            this.schemaDefinition = schemaDefinition != null ? LazyJsonMap.copyOf(schemaDefinition) : null;
             return this;
         }
 
         public Builder metadata(Map<String, Object> metadata) {
-            this.metadata = metadata != null ? Map.copyOf(metadata) : null;
+            this.metadata = metadata != null ? LazyJsonMap.copyOf(metadata) : null;
             return this;
         }
 
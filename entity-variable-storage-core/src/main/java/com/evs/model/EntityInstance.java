@@ -1,5 +1,7 @@
 package com.evs.model;
 
+import com.evs.util.LazyJsonMap;
+
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
@@ -69,12 +71,12 @@ public record EntityInstance(
         }
 
         public Builder context(Map<String, Object> context) {
-            this.context = context != null ? Map.copyOf(context) : null;
+            this.context = context != null ? LazyJsonMap.copyOf(context) : null;
             return this;
         }
 
         public Builder metadata(Map<String, Object> metadata) {
-            this.metadata = metadata != null ? Map.copyOf(metadata) : null;
+            this.metadata = metadata != null ? LazyJsonMap.copyOf(metadata) : null;
             return this;
         }
 
@@ -0,0 +1,67 @@
+package com.evs.model;
+
+import java.util.UUID;
+
+/**
+ * Keyset page request over the instances of one entity, newest first.
+ */
+public record EntityInstancePageRequest(
+        UUID entityId,
+        EntityInstanceStatus status,
+        TimeRange registeredRange,
+        int pageSize,
+        String pageToken) {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    public EntityInstancePageRequest {
+        if (entityId == null) {
+            throw new IllegalArgumentException("entityId is required");
+        }
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private UUID entityId;
+        private EntityInstanceStatus status;
+        private TimeRange registeredRange = TimeRange.all();
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private String pageToken;
+
+        public Builder entityId(UUID entityId) {
+            this.entityId = entityId;
+            return this;
+        }
+
+        public Builder status(EntityInstanceStatus status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder registeredRange(TimeRange registeredRange) {
+            this.registeredRange = registeredRange != null ? registeredRange : TimeRange.all();
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder pageToken(String pageToken) {
+            this.pageToken = pageToken;
+            return this;
+        }
+
+        public EntityInstancePageRequest build() {
+            return new EntityInstancePageRequest(entityId, status, registeredRange, pageSize, pageToken);
+        }
+    }
+}
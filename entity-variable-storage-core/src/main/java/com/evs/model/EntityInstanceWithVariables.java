@@ -0,0 +1,15 @@
+package com.evs.model;
+
+import java.util.List;
+
+/**
+ * An instance together with the variables written with it, as returned by an atomic create.
+ *
+ * @param variables the written variables with generated ids, in input order
+ */
+public record EntityInstanceWithVariables(EntityInstance instance, List<Variable> variables) {
+
+    public EntityInstanceWithVariables {
+        variables = List.copyOf(variables);
+    }
+}
@@ -0,0 +1,13 @@
+package com.evs.model;
+
+import java.time.Instant;
+
+/**
+ * One bucket of a downsampled variable history.
+ *
+ * @param bucket start of the bucket
+ * @param value  reduced numeric value of the bucket
+ * @param count  number of rows in the bucket
+ */
+public record HistoryPoint(Instant bucket, Double value, long count) {
+}
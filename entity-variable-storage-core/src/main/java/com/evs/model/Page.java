@@ -0,0 +1,20 @@
+package com.evs.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ *
+ * @param items         rows of this page
+ * @param nextPageToken opaque token for the next page, or {@code null} on the last page
+ */
+public record Page<T>(List<T> items, String nextPageToken) {
+
+    public Page {
+        items = List.copyOf(items);
+    }
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.evs.model;
+
+import java.time.Instant;
+
+/**
+ * Half-open {@code registered_at} window {@code [from, to)}. A {@code null} bound is unbounded.
+ * Bounded ranges let PostgreSQL prune monthly variable partitions.
+ */
+public record TimeRange(Instant from, Instant to) {
+
+    private static final TimeRange ALL = new TimeRange(null, null);
+
+    public TimeRange {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("TimeRange 'to' must not be before 'from'");
+        }
+    }
+
+    public static TimeRange all() {
+        return ALL;
+    }
+
+    public static TimeRange between(Instant from, Instant to) {
+        return new TimeRange(from, to);
+    }
+
+    public static TimeRange since(Instant from) {
+        return new TimeRange(from, null);
+    }
+
+    public static TimeRange until(Instant to) {
+        return new TimeRange(null, to);
+    }
+
+    public boolean isUnbounded() {
+        return from == null && to == null;
+    }
+}
@@ -0,0 +1,262 @@
+package com.evs.model;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Columnar, append-only batch of variables of one entity for bulk ingestion. Values are kept in
+ * primitive columns ({@code long[]}, {@code double[]}, bit sets for booleans and nulls), so
+ * appending a numeric or boolean value allocates nothing beyond occasional array growth, and
+ * the repository writes rows straight from the columns without building {@link Variable}s.
+ * <p>
+ * Rows take the registration time set by the last {@link #at(long)} call, or the write time
+ * if none was set. Not thread-safe.
+ */
+public final class VariableBatch {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long UNSET = Long.MIN_VALUE;
+    private static final VariableType[] TYPES = VariableType.values();
+
+    private final UUID entityId;
+    private UUID createdBy;
+    private long currentRegisteredAtMicros = UNSET;
+
+    private int size;
+    private UUID[] instanceIds;
+    private String[] names;
+    private byte[] types;
+    private long[] longs;
+    private double[] doubles;
+    private long[] registeredAtMicros;
+    private Object[] objects;
+    private final BitSet booleans = new BitSet();
+    private final BitSet nulls = new BitSet();
+
+    public VariableBatch(UUID entityId) {
+        this(entityId, DEFAULT_CAPACITY);
+    }
+
+    public VariableBatch(UUID entityId, int expectedRows) {
+        if (entityId == null) {
+            throw new IllegalArgumentException("entityId is required");
+        }
+        int capacity = Math.max(expectedRows, 16);
+        this.entityId = entityId;
+        this.instanceIds = new UUID[capacity];
+        this.names = new String[capacity];
+        this.types = new byte[capacity];
+        this.longs = new long[capacity];
+        this.doubles = new double[capacity];
+        this.registeredAtMicros = new long[capacity];
+    }
+
+    /**
+     * Sets the registration time, in epoch milliseconds, of the rows appended after this call.
+     */
+    public VariableBatch at(long epochMillis) {
+        this.currentRegisteredAtMicros = Math.multiplyExact(epochMillis, 1000L);
+        return this;
+    }
+
+    public VariableBatch at(Instant registeredAt) {
+        this.currentRegisteredAtMicros = registeredAt.getEpochSecond() * 1_000_000L + registeredAt.getNano() / 1_000;
+        return this;
+    }
+
+    public VariableBatch createdBy(UUID createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+
+    public VariableBatch addLong(UUID instanceId, String name, long value) {
+        int row = append(instanceId, name, VariableType.INTEGER);
+        longs[row] = value;
+        return this;
+    }
+
+    public VariableBatch addDouble(UUID instanceId, String name, double value) {
+        int row = append(instanceId, name, VariableType.FLOAT);
+        doubles[row] = value;
+        return this;
+    }
+
+    public VariableBatch addBoolean(UUID instanceId, String name, boolean value) {
+        booleans.set(append(instanceId, name, VariableType.BOOLEAN), value);
+        return this;
+    }
+
+    public VariableBatch addTimestamp(UUID instanceId, String name, Instant value) {
+        int row = append(instanceId, name, VariableType.TIMESTAMP);
+        if (value == null) {
+            nulls.set(row);
+        } else {
+            longs[row] = value.getEpochSecond() * 1_000_000L + value.getNano() / 1_000;
+        }
+        return this;
+    }
+
+    public VariableBatch addString(UUID instanceId, String name, String value) {
+        return addObject(instanceId, name, VariableType.STRING, value);
+    }
+
+    /**
+     * @param value any value {@link com.evs.util.JsonUtil} can serialize; serialized when written
+     */
+    public VariableBatch addJson(UUID instanceId, String name, Object value) {
+        return addObject(instanceId, name, VariableType.JSON, value);
+    }
+
+    public VariableBatch addUuid(UUID instanceId, String name, UUID value) {
+        return addObject(instanceId, name, VariableType.UUID, value);
+    }
+
+    public VariableBatch addBinary(UUID instanceId, String name, byte[] value) {
+        return addObject(instanceId, name, VariableType.BINARY, value);
+    }
+
+    public VariableBatch addNull(UUID instanceId, String name, VariableType type) {
+        nulls.set(append(instanceId, name, type));
+        return this;
+    }
+
+    public UUID entityId() {
+        return entityId;
+    }
+
+    public UUID createdBy() {
+        return createdBy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public UUID instanceId(int row) {
+        return instanceIds[checkRow(row)];
+    }
+
+    public String name(int row) {
+        return names[checkRow(row)];
+    }
+
+    public VariableType type(int row) {
+        return TYPES[types[checkRow(row)]];
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(checkRow(row));
+    }
+
+    /**
+     * @return the INTEGER value of {@code row}
+     */
+    public long longValue(int row) {
+        return longs[checkRow(row)];
+    }
+
+    public double doubleValue(int row) {
+        return doubles[checkRow(row)];
+    }
+
+    public boolean booleanValue(int row) {
+        return booleans.get(checkRow(row));
+    }
+
+    /**
+     * @return the TIMESTAMP value of {@code row} in microseconds since the Unix epoch
+     */
+    public long timestampMicros(int row) {
+        return longs[checkRow(row)];
+    }
+
+    /**
+     * @return the STRING, JSON, UUID or BINARY value of {@code row}
+     */
+    public Object objectValue(int row) {
+        checkRow(row);
+        return objects != null ? objects[row] : null;
+    }
+
+    /**
+     * @return whether {@code row} has its own registration time
+     */
+    public boolean hasRegisteredAt(int row) {
+        return registeredAtMicros[checkRow(row)] != UNSET;
+    }
+
+    /**
+     * @return the registration time of {@code row} in microseconds since the Unix epoch
+     */
+    public long registeredAtMicros(int row) {
+        return registeredAtMicros[checkRow(row)];
+    }
+
+    /**
+     * Removes all rows, keeping the allocated columns for reuse.
+     */
+    public void clear() {
+        Arrays.fill(instanceIds, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        if (objects != null) {
+            Arrays.fill(objects, 0, size, null);
+        }
+        booleans.clear();
+        nulls.clear();
+        size = 0;
+    }
+
+    private VariableBatch addObject(UUID instanceId, String name, VariableType type, Object value) {
+        int row = append(instanceId, name, type);
+        if (value == null) {
+            nulls.set(row);
+        } else {
+            if (objects == null) {
+                objects = new Object[instanceIds.length];
+            }
+            objects[row] = value;
+        }
+        return this;
+    }
+
+    private int append(UUID instanceId, String name, VariableType type) {
+        if (instanceId == null || name == null) {
+            throw new IllegalArgumentException("instanceId and name are required");
+        }
+        if (size == instanceIds.length) {
+            grow();
+        }
+        int row = size++;
+        instanceIds[row] = instanceId;
+        names[row] = name;
+        types[row] = (byte) type.ordinal();
+        registeredAtMicros[row] = currentRegisteredAtMicros;
+        return row;
+    }
+
+    private void grow() {
+        int capacity = instanceIds.length * 2;
+        instanceIds = Arrays.copyOf(instanceIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        types = Arrays.copyOf(types, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+        doubles = Arrays.copyOf(doubles, capacity);
+        registeredAtMicros = Arrays.copyOf(registeredAtMicros, capacity);
+        if (objects != null) {
+            objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+        return row;
+    }
+}
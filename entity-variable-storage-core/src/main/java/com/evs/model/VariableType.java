@@ -4,22 +4,49 @@ package com.evs.model;
  * Supported variable value types with corresponding database column names.
  */
 public enum VariableType {
-    STRING("value_string"),
-    INTEGER("value_int"),
-    FLOAT("value_float"),
-    BOOLEAN("value_bool"),
-    JSON("value_json"),
-    TIMESTAMP("value_timestamp"),
-    BINARY("value_binary"),
-    UUID("value_uuid");
+    STRING("value_string", "text"),
+    INTEGER("value_int", "bigint"),
+    FLOAT("value_float", "double precision"),
+    BOOLEAN("value_bool", "boolean"),
+    JSON("value_json", "jsonb"),
+    TIMESTAMP("value_timestamp", "timestamptz"),
+    BINARY("value_binary", "bytea"),
+    UUID("value_uuid", "uuid");
+
+    private static final VariableType[] VALUES = values();
 
     private final String columnName;
+    private final String sqlType;
 
-    VariableType(String columnName) {
+    VariableType(String columnName, String sqlType) {
         this.columnName = columnName;
+        this.sqlType = sqlType;
     }
 
     public String getColumnName() {
         return columnName;
     }
+
+    /**
+     * PostgreSQL type of {@link #getColumnName()}, usable in casts such as {@code ?::jsonb}.
+     */
+    public String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Parses a type name, e.g. a stored {@code variable_type} value or a type declared in an
+     * entity's schema. This is the one place type names are parsed, so every caller reports an
+     * unknown type the same way.
+     *
+     * @throws IllegalArgumentException if {@code name} is not a constant of this type
+     */
+    public static VariableType fromName(String name) {
+        for (VariableType type : VALUES) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown variable type: " + name);
+    }
 }
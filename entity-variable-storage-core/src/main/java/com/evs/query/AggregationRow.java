@@ -0,0 +1,27 @@
+package com.evs.query;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One group of a {@link VariableAggregation}. Aggregates over an empty group are {@code null}
+ * except {@code count}.
+ *
+ * @param group       variable name or STRING variable value, depending on the grouping; {@code null} otherwise
+ * @param bucket      start of the time bucket for time grouping; {@code null} otherwise
+ * @param percentiles requested fraction to value
+ */
+public record AggregationRow(
+        String group,
+        Instant bucket,
+        long count,
+        Double sum,
+        Double avg,
+        Double min,
+        Double max,
+        Map<Double, Double> percentiles) {
+
+    public AggregationRow {
+        percentiles = Map.copyOf(percentiles);
+    }
+}
@@ -0,0 +1,13 @@
+package com.evs.query;
+
+import java.util.List;
+
+/**
+ * A piece of SQL and the parameters for its {@code ?} placeholders, in order.
+ */
+public record SqlFragment(String sql, List<Object> parameters) {
+
+    public SqlFragment {
+        parameters = List.copyOf(parameters);
+    }
+}
@@ -0,0 +1,135 @@
+package com.evs.query;
+
+import com.evs.model.TimeRange;
+import com.evs.model.VariableType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Server-side aggregation of numeric variables of one entity: count, sum, avg, min, max and
+ * optional percentiles ({@code percentile_cont}) over {@code value_int} or {@code value_float}.
+ *
+ * @param variableNames variables to aggregate (at least one)
+ * @param valueType     {@link VariableType#INTEGER} or {@link VariableType#FLOAT}
+ * @param range         {@code registered_at} window, also used for partition pruning
+ * @param groupBy       how rows are grouped into {@link AggregationRow}s
+ * @param groupVariable STRING variable whose (latest) value groups the rows, for {@link GroupBy#STRING_VARIABLE}
+ * @param bucket        bucket width for {@link GroupBy#TIME_BUCKET}
+ * @param percentiles   fractions in [0, 1], e.g. 0.5 and 0.95
+ */
+public record VariableAggregation(
+        UUID entityId,
+        Set<String> variableNames,
+        VariableType valueType,
+        TimeRange range,
+        GroupBy groupBy,
+        String groupVariable,
+        TimeBucket bucket,
+        List<Double> percentiles) {
+
+    public enum GroupBy {
+        NONE, VARIABLE_NAME, STRING_VARIABLE, TIME_BUCKET
+    }
+
+    /**
+     * {@code date_trunc} units; buckets are computed in UTC.
+     */
+    public enum TimeBucket {
+        MINUTE, HOUR, DAY, WEEK, MONTH;
+
+        public String unit() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public VariableAggregation {
+        if (entityId == null) {
+            throw new IllegalArgumentException("entityId is required");
+        }
+        if (variableNames == null || variableNames.isEmpty()) {
+            throw new IllegalArgumentException("at least one variable name is required");
+        }
+        if (valueType != VariableType.INTEGER && valueType != VariableType.FLOAT) {
+            throw new IllegalArgumentException("valueType must be INTEGER or FLOAT");
+        }
+        if (groupBy == GroupBy.STRING_VARIABLE && groupVariable == null) {
+            throw new IllegalArgumentException("groupVariable is required for STRING_VARIABLE grouping");
+        }
+        if (groupBy == GroupBy.TIME_BUCKET && bucket == null) {
+            throw new IllegalArgumentException("bucket is required for TIME_BUCKET grouping");
+        }
+        for (Double p : percentiles) {
+            if (p == null || p < 0 || p > 1) {
+                throw new IllegalArgumentException("percentiles must be between 0 and 1");
+            }
+        }
+        variableNames = Set.copyOf(variableNames);
+        percentiles = List.copyOf(percentiles);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private UUID entityId;
+        private Set<String> variableNames;
+        private VariableType valueType = VariableType.FLOAT;
+        private TimeRange range = TimeRange.all();
+        private GroupBy groupBy = GroupBy.NONE;
+        private String groupVariable;
+        private TimeBucket bucket;
+        private List<Double> percentiles = List.of();
+
+        public Builder entityId(UUID entityId) {
+            this.entityId = entityId;
+            return this;
+        }
+
+        public Builder variableNames(String... variableNames) {
+            this.variableNames = Set.copyOf(Arrays.asList(variableNames));
+            return this;
+        }
+
+        public Builder valueType(VariableType valueType) {
+            this.valueType = valueType;
+            return this;
+        }
+
+        public Builder range(TimeRange range) {
+            this.range = range != null ? range : TimeRange.all();
+            return this;
+        }
+
+        public Builder groupByVariableName() {
+            this.groupBy = GroupBy.VARIABLE_NAME;
+            return this;
+        }
+
+        public Builder groupByStringVariable(String groupVariable) {
+            this.groupBy = GroupBy.STRING_VARIABLE;
+            this.groupVariable = groupVariable;
+            return this;
+        }
+
+        public Builder groupByTimeBucket(TimeBucket bucket) {
+            this.groupBy = GroupBy.TIME_BUCKET;
+            this.bucket = bucket;
+            return this;
+        }
+
+        public Builder percentiles(Double... percentiles) {
+            this.percentiles = List.of(percentiles);
+            return this;
+        }
+
+        public VariableAggregation build() {
+            return new VariableAggregation(entityId, variableNames, valueType, range, groupBy,
+                    groupVariable, bucket, percentiles);
+        }
+    }
+}
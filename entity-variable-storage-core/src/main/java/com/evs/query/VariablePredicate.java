@@ -0,0 +1,132 @@
+package com.evs.query;
+
+import com.evs.model.VariableType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Condition on an instance's variables, compiled to SQL by {@link VariableQueryCompiler}.
+ * <p>
+ * A leaf predicate matches an instance when it has a variable named {@code name} whose
+ * value, read from the {@code value_*} column of {@code type}, satisfies the operator.
+ * JSON and BINARY values cannot be compared.
+ */
+public sealed interface VariablePredicate {
+
+    enum Operator {
+        EQ("="), GT(">"), GTE(">="), LT("<"), LTE("<=");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public String sql() {
+            return sql;
+        }
+    }
+
+    record Compare(String name, VariableType type, Operator operator, Object value) implements VariablePredicate {
+        public Compare {
+            requireComparable(name, type);
+            if (operator == null || value == null) {
+                throw new IllegalArgumentException("operator and value are required");
+            }
+        }
+    }
+
+    record In(String name, VariableType type, List<Object> values) implements VariablePredicate {
+        public In {
+            requireComparable(name, type);
+            if (values == null || values.isEmpty()) {
+                throw new IllegalArgumentException("IN requires at least one value");
+            }
+            values = List.copyOf(values);
+        }
+    }
+
+    /**
+     * STRING values starting with {@code prefix}; {@code %} and {@code _} match literally.
+     */
+    record Prefix(String name, String prefix) implements VariablePredicate {
+        public Prefix {
+            requireComparable(name, VariableType.STRING);
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix is required");
+            }
+        }
+    }
+
+    record And(List<VariablePredicate> predicates) implements VariablePredicate {
+        public And {
+            predicates = requireOperands(predicates);
+        }
+    }
+
+    record Or(List<VariablePredicate> predicates) implements VariablePredicate {
+        public Or {
+            predicates = requireOperands(predicates);
+        }
+    }
+
+    static VariablePredicate eq(String name, VariableType type, Object value) {
+        return new Compare(name, type, Operator.EQ, value);
+    }
+
+    static VariablePredicate gt(String name, VariableType type, Object value) {
+        return new Compare(name, type, Operator.GT, value);
+    }
+
+    static VariablePredicate gte(String name, VariableType type, Object value) {
+        return new Compare(name, type, Operator.GTE, value);
+    }
+
+    static VariablePredicate lt(String name, VariableType type, Object value) {
+        return new Compare(name, type, Operator.LT, value);
+    }
+
+    static VariablePredicate lte(String name, VariableType type, Object value) {
+        return new Compare(name, type, Operator.LTE, value);
+    }
+
+    /**
+     * Half-open range {@code from <= value < to}, matched against a single stored value.
+     */
+    static VariablePredicate between(String name, VariableType type, Object from, Object to) {
+        return and(new Compare(name, type, Operator.GTE, from), new Compare(name, type, Operator.LT, to));
+    }
+
+    static VariablePredicate in(String name, VariableType type, Collection<?> values) {
+        return new In(name, type, values != null ? List.copyOf(values) : null);
+    }
+
+    static VariablePredicate startsWith(String name, String prefix) {
+        return new Prefix(name, prefix);
+    }
+
+    static VariablePredicate and(VariablePredicate... predicates) {
+        return new And(List.of(predicates));
+    }
+
+    static VariablePredicate or(VariablePredicate... predicates) {
+        return new Or(List.of(predicates));
+    }
+
+    private static void requireComparable(String name, VariableType type) {
+        if (name == null || type == null) {
+            throw new IllegalArgumentException("variable name and type are required");
+        }
+        if (type == VariableType.JSON || type == VariableType.BINARY) {
+            throw new IllegalArgumentException(type + " variables cannot be compared");
+        }
+    }
+
+    private static List<VariablePredicate> requireOperands(List<VariablePredicate> predicates) {
+        if (predicates == null || predicates.isEmpty()) {
+            throw new IllegalArgumentException("at least one predicate is required");
+        }
+        return List.copyOf(predicates);
+    }
+}
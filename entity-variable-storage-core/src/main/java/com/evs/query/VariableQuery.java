@@ -0,0 +1,82 @@
+package com.evs.query;
+
+import com.evs.model.EntityInstanceStatus;
+
+import java.util.UUID;
+
+/**
+ * Finds the instances of one entity whose variables satisfy a {@link VariablePredicate}.
+ * Results are ordered newest first and paged by keyset like
+ * {@link com.evs.model.EntityInstancePageRequest}.
+ *
+ * @param where             condition on variables; {@code null} matches every instance
+ * @param currentValuesOnly match only values written with set-variable semantics, ignoring
+ *                          appended and history rows
+ */
+public record VariableQuery(
+        UUID entityId,
+        VariablePredicate where,
+        EntityInstanceStatus status,
+        boolean currentValuesOnly,
+        int limit,
+        String pageToken) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 10_000;
+
+    public VariableQuery {
+        if (entityId == null) {
+            throw new IllegalArgumentException("entityId is required");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private UUID entityId;
+        private VariablePredicate where;
+        private EntityInstanceStatus status;
+        private boolean currentValuesOnly;
+        private int limit = DEFAULT_LIMIT;
+        private String pageToken;
+
+        public Builder entityId(UUID entityId) {
+            this.entityId = entityId;
+            return this;
+        }
+
+        public Builder where(VariablePredicate where) {
+            this.where = where;
+            return this;
+        }
+
+        public Builder status(EntityInstanceStatus status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder currentValuesOnly(boolean currentValuesOnly) {
+            this.currentValuesOnly = currentValuesOnly;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder pageToken(String pageToken) {
+            this.pageToken = pageToken;
+            return this;
+        }
+
+        public VariableQuery build() {
+            return new VariableQuery(entityId, where, status, currentValuesOnly, limit, pageToken);
+        }
+    }
+}
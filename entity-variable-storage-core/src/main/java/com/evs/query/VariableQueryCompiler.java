@@ -0,0 +1,106 @@
+package com.evs.query;
+
+import com.evs.model.VariableType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compiles a {@link VariablePredicate} into a boolean SQL condition over an
+ * {@code entity_instances} row aliased {@code ei}.
+ * <p>
+ * Each leaf becomes an {@code EXISTS} sub-query on {@code variables} that filters on the
+ * entity id (so only that entity's partition is scanned), the instance, the variable name and
+ * the typed {@code value_*} column, with an explicit cast so the comparison uses the column's
+ * type and its indexes.
+ */
+public final class VariableQueryCompiler {
+
+    private VariableQueryCompiler() {
+    }
+
+    public static SqlFragment compile(UUID entityId, VariablePredicate predicate, boolean currentValuesOnly) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        append(sql, params, entityId, predicate, currentValuesOnly);
+        return new SqlFragment(sql.toString(), params);
+    }
+
+    private static void append(StringBuilder sql, List<Object> params, UUID entityId,
+                               VariablePredicate predicate, boolean currentOnly) {
+        switch (predicate) {
+            case VariablePredicate.And and -> appendGroup(sql, params, entityId, and.predicates(), " AND ", currentOnly);
+            case VariablePredicate.Or or -> appendGroup(sql, params, entityId, or.predicates(), " OR ", currentOnly);
+            case VariablePredicate.Compare c -> {
+                openExists(sql, params, entityId, c.name(), currentOnly);
+                sql.append(c.type().getColumnName()).append(' ').append(c.operator().sql())
+                        .append(" ?::").append(c.type().getSqlType()).append(')');
+                params.add(toParameter(c.type(), c.value()));
+            }
+            case VariablePredicate.In in -> {
+                openExists(sql, params, entityId, in.name(), currentOnly);
+                sql.append(in.type().getColumnName()).append(" IN (");
+                for (int i = 0; i < in.values().size(); i++) {
+                    sql.append(i > 0 ? ", " : "").append("?::").append(in.type().getSqlType());
+                    params.add(toParameter(in.type(), in.values().get(i)));
+                }
+                sql.append("))");
+            }
+            case VariablePredicate.Prefix p -> {
+                openExists(sql, params, entityId, p.name(), currentOnly);
+                sql.append("value_string LIKE ? ESCAPE '\\')");
+                params.add(escapeLike(p.prefix()) + "%");
+            }
+        }
+    }
+
+    private static void appendGroup(StringBuilder sql, List<Object> params, UUID entityId,
+                                    List<VariablePredicate> predicates, String joiner, boolean currentOnly) {
+        sql.append('(');
+        for (int i = 0; i < predicates.size(); i++) {
+            if (i > 0) {
+                sql.append(joiner);
+            }
+            append(sql, params, entityId, predicates.get(i), currentOnly);
+        }
+        sql.append(')');
+    }
+
+    private static void openExists(StringBuilder sql, List<Object> params, UUID entityId, String name,
+                                   boolean currentOnly) {
+        sql.append("EXISTS (SELECT 1 FROM variables v WHERE v.entity_id = ? AND v.entity_instance_id = ei.id")
+                .append(" AND v.variable_name = ?");
+        if (currentOnly) {
+            sql.append(" AND v.is_current");
+        }
+        sql.append(" AND v.");
+        params.add(entityId);
+        params.add(name);
+    }
+
+    static Object toParameter(VariableType type, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Predicate values must not be null");
+        }
+        try {
+            return switch (type) {
+                case INTEGER -> ((Number) value).longValue();
+                case FLOAT -> ((Number) value).doubleValue();
+                case TIMESTAMP -> Timestamp.from((Instant) value);
+                case STRING -> (String) value;
+                case BOOLEAN -> (Boolean) value;
+                case UUID -> (UUID) value;
+                case JSON, BINARY -> throw new IllegalArgumentException(type + " variables cannot be compared");
+            };
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Value " + value + " does not match variable type " + type, e);
+        }
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
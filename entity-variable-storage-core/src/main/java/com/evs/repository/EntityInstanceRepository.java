@@ -1,8 +1,22 @@
 package com.evs.repository;
 
+import com.evs.codec.ValueCompression;
+import com.evs.config.EVSConfig;
+import com.evs.metrics.EVSMetrics;
 import com.evs.model.EntityInstance;
+import com.evs.model.EntityInstancePageRequest;
 import com.evs.model.EntityInstanceStatus;
+import com.evs.model.EntityInstanceWithVariables;
+import com.evs.model.Page;
+import com.evs.model.TimeRange;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import com.evs.query.SqlFragment;
+import com.evs.query.VariableQuery;
+import com.evs.query.VariableQueryCompiler;
 import com.evs.util.JsonUtil;
+import com.evs.util.KeysetToken;
+import com.evs.util.LazyJsonMap;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -12,19 +26,91 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class EntityInstanceRepository {
 
+    private static final String REPOSITORY = "entity_instance";
+
+    /** Per-variable arrays expanded by {@code unnest}, value columns in {@link VariableType} order. */
+    private static final List<String> UNNEST_COLUMNS = Stream.of(
+            Stream.of("variable_name", "variable_type"),
+            Arrays.stream(VariableType.values()).map(VariableType::getColumnName),
+            Stream.of("is_indexed", "is_sensitive", "is_encrypted", "registered_at", "created_by", "value_codec"))
+            .flatMap(s -> s)
+            .toList();
+
+    /**
+     * Variable ids are drawn from the sequence in {@code u}, next to each row's ordinal, and
+     * inserted explicitly: neither {@code RETURNING} nor an unordered sub-select has a defined
+     * order, so ids are matched to the input only through {@code ord}.
+     */
+    private static final String SAVE_WITH_VARIABLES_SQL = """
+        WITH inst AS (
+            INSERT INTO entity_instances (id, entity_id, uuid, status, registered_at, expires_at,
+                                          context, metadata, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)
+            RETURNING id, entity_id, registered_at, created_at, updated_at
+        ), u AS (
+            SELECT nextval(pg_get_serial_sequence('variables', 'id')) AS id, t.*
+            FROM unnest(%3$s) WITH ORDINALITY AS t(%1$s, ord)
+        ), vars AS (
+            INSERT INTO variables (id, entity_id, entity_instance_id, %1$s)
+            SELECT u.id, inst.entity_id, inst.id, %2$s
+            FROM inst, u
+            RETURNING id
+        )
+        SELECT inst.registered_at, inst.created_at, inst.updated_at,
+               ARRAY(SELECT u.id FROM u JOIN vars ON vars.id = u.id ORDER BY u.ord) AS variable_ids
+        FROM inst
+        """.formatted(
+            String.join(", ", UNNEST_COLUMNS),
+            UNNEST_COLUMNS.stream()
+                    .map(c -> c.equals("registered_at") ? "COALESCE(u.registered_at, inst.registered_at)" : "u." + c)
+                    .collect(Collectors.joining(", ")),
+            Stream.of(
+                    Stream.of("?::text[]", "?::text[]"),
+                    Arrays.stream(VariableType.values())
+                            .map(t -> t == VariableType.JSON ? "?::text[]::jsonb[]" : "?::" + t.getSqlType() + "[]"),
+                    Stream.of("?::boolean[]", "?::boolean[]", "?::boolean[]", "?::timestamptz[]", "?::uuid[]",
+                            "?::smallint[]"))
+                    .flatMap(s -> s)
+                    .collect(Collectors.joining(", ")));
+
     private final DataSource dataSource;
+    private final EVSMetrics metrics;
+    private final ValueCompression compression;
 
     public EntityInstanceRepository(DataSource dataSource) {
+        this(dataSource, EVSMetrics.NOOP);
+    }
+
+    public EntityInstanceRepository(DataSource dataSource, EVSMetrics metrics) {
+        this(dataSource, metrics, ValueCompression.NONE);
+    }
+
+    public EntityInstanceRepository(DataSource dataSource, EVSConfig config) {
+        this(dataSource, config.getMetrics(), ValueCompression.from(config));
+    }
+
+    private EntityInstanceRepository(DataSource dataSource, EVSMetrics metrics, ValueCompression compression) {
         this.dataSource = dataSource;
+        this.metrics = metrics;
+        this.compression = compression;
     }
 
     public EntityInstance save(EntityInstance instance) {
+        return metrics.timeRepositoryCall(REPOSITORY, "save", () -> doSave(instance));
+    }
+
+    private EntityInstance doSave(EntityInstance instance) {
         String sql = """
             INSERT INTO entity_instances (id, entity_id, uuid, status, registered_at, expires_at,
                                          context, metadata, created_by)
@@ -42,15 +128,15 @@ public class EntityInstanceRepository {
             ps.setString(4, instance.status().name());
             ps.setTimestamp(5, instance.registeredAt() != null ? Timestamp.from(instance.registeredAt()) : Timestamp.from(Instant.now()));
             ps.setObject(6, instance.expiresAt() != null ? Timestamp.from(instance.expiresAt()) : null);
-            ps.setString(7, JsonUtil.toJson(instance.context()));
-            ps.setString(8, JsonUtil.toJson(instance.metadata()));
+            ps.setString(7, JsonUtil.toJson(instance.context(), metrics));
+            ps.setString(8, JsonUtil.toJson(instance.metadata(), metrics));
             ps.setObject(9, instance.createdBy());
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    Instant registeredAt = toInstant(rs.getTimestamp("registered_at"));
-                    Instant createdAt = toInstant(rs.getTimestamp("created_at"));
-                    Instant updatedAt = toInstant(rs.getTimestamp("updated_at"));
+                    Instant registeredAt = JdbcTimes.getInstant(rs, "registered_at");
+                    Instant createdAt = JdbcTimes.getInstant(rs, "created_at");
+                    Instant updatedAt = JdbcTimes.getInstant(rs, "updated_at");
                     return EntityInstance.builder()
                             .id(id)
                             .entityId(instance.entityId())
@@ -73,7 +159,169 @@ public class EntityInstanceRepository {
         throw new com.evs.exception.EVSException("Failed to save entity instance");
     }
 
+    /**
+     * Inserts an instance and its variables with one data-modifying CTE: one statement, one
+     * round trip and one commit, so a failure leaves neither behind. Variables are passed as
+     * parallel arrays expanded by {@code unnest}; their entity and instance ids are taken from
+     * the new instance and a missing {@code registeredAt} defaults to the instance's.
+     */
+    public EntityInstanceWithVariables saveWithVariables(EntityInstance instance, List<Variable> variables) {
+        metrics.recordBatchRows("saveWithVariables", variables.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "saveWithVariables", () -> doSaveWithVariables(instance, variables));
+    }
+
+    private EntityInstanceWithVariables doSaveWithVariables(EntityInstance instance, List<Variable> variables) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SAVE_WITH_VARIABLES_SQL)) {
+
+            UUID id = instance.id() != null ? instance.id() : UUID.randomUUID();
+            ps.setObject(1, id);
+            ps.setObject(2, instance.entityId());
+            ps.setObject(3, instance.uuid());
+            ps.setString(4, instance.status().name());
+            ps.setTimestamp(5, instance.registeredAt() != null ? Timestamp.from(instance.registeredAt()) : Timestamp.from(Instant.now()));
+            ps.setObject(6, instance.expiresAt() != null ? Timestamp.from(instance.expiresAt()) : null);
+            ps.setString(7, JsonUtil.toJson(instance.context(), metrics));
+            ps.setString(8, JsonUtil.toJson(instance.metadata(), metrics));
+            ps.setObject(9, instance.createdBy());
+            bindVariableArrays(conn, ps, 10, variables);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new com.evs.exception.EVSException("Failed to save entity instance");
+                }
+                EntityInstance saved = EntityInstance.builder()
+                        .id(id)
+                        .entityId(instance.entityId())
+                        .uuid(instance.uuid())
+                        .status(instance.status())
+                        .registeredAt(JdbcTimes.getInstant(rs, "registered_at"))
+                        .expiresAt(instance.expiresAt())
+                        .context(instance.context())
+                        .metadata(instance.metadata())
+                        .createdAt(JdbcTimes.getInstant(rs, "created_at"))
+                        .updatedAt(JdbcTimes.getInstant(rs, "updated_at"))
+                        .createdBy(instance.createdBy())
+                        .build();
+
+                Long[] variableIds = (Long[]) rs.getArray("variable_ids").getArray();
+                if (variableIds.length != variables.size()) {
+                    throw new com.evs.exception.EVSException("Saved " + variableIds.length + " of "
+                            + variables.size() + " variables");
+                }
+                List<Variable> savedVariables = new ArrayList<>(variables.size());
+                for (int i = 0; i < variables.size(); i++) {
+                    Variable v = variables.get(i);
+                    savedVariables.add(Variable.builder()
+                            .from(v)
+                            .id(variableIds[i])
+                            .entityId(saved.entityId())
+                            .entityInstanceId(id)
+                            .registeredAt(v.registeredAt() != null ? v.registeredAt() : saved.registeredAt())
+                            .build());
+                }
+                return new EntityInstanceWithVariables(saved, savedVariables);
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to save entity instance with variables", e);
+        }
+    }
+
+    /**
+     * Binds one array per {@link #UNNEST_COLUMNS} entry, {@code variables.size()} elements each.
+     * Value arrays hold {@code null} for variables of other types; binary values are compressed
+     * as configured.
+     */
+    private void bindVariableArrays(Connection conn, PreparedStatement ps, int index,
+                                           List<Variable> variables) throws SQLException {
+        int n = variables.size();
+        String[] names = new String[n];
+        String[] types = new String[n];
+        Map<VariableType, Object[]> values = new EnumMap<>(VariableType.class);
+        Boolean[] indexed = new Boolean[n];
+        Boolean[] sensitive = new Boolean[n];
+        Boolean[] encrypted = new Boolean[n];
+        Timestamp[] registeredAt = new Timestamp[n];
+        UUID[] createdBy = new UUID[n];
+        Short[] codecs = new Short[n];
+
+        for (VariableType type : VariableType.values()) {
+            values.put(type, switch (type) {
+                case STRING, JSON -> new String[n];
+                case INTEGER -> new Long[n];
+                case FLOAT -> new Double[n];
+                case BOOLEAN -> new Boolean[n];
+                case TIMESTAMP -> new Timestamp[n];
+                case BINARY -> new byte[n][];
+                case UUID -> new UUID[n];
+            });
+        }
+
+        for (int i = 0; i < n; i++) {
+            Variable v = variables.get(i);
+            names[i] = v.variableName();
+            types[i] = v.variableType().name();
+            Object value = toArrayElement(v.variableType(), v.value());
+            codecs[i] = ValueCompression.UNCOMPRESSED;
+            if (v.variableType() == VariableType.BINARY) {
+                ValueCompression.Encoded encoded = compression.encode((byte[]) value);
+                value = encoded.bytes();
+                codecs[i] = encoded.codec();
+            }
+            values.get(v.variableType())[i] = value;
+            indexed[i] = v.isIndexed();
+            sensitive[i] = v.isSensitive();
+            encrypted[i] = v.isEncrypted();
+            registeredAt[i] = v.registeredAt() != null ? Timestamp.from(v.registeredAt()) : null;
+            createdBy[i] = v.createdBy();
+        }
+
+        ps.setArray(index++, conn.createArrayOf("text", names));
+        ps.setArray(index++, conn.createArrayOf("text", types));
+        for (VariableType type : VariableType.values()) {
+            ps.setArray(index++, conn.createArrayOf(arrayElementType(type), values.get(type)));
+        }
+        ps.setArray(index++, conn.createArrayOf("bool", indexed));
+        ps.setArray(index++, conn.createArrayOf("bool", sensitive));
+        ps.setArray(index++, conn.createArrayOf("bool", encrypted));
+        ps.setArray(index++, conn.createArrayOf("timestamptz", registeredAt));
+        ps.setArray(index++, conn.createArrayOf("uuid", createdBy));
+        ps.setArray(index, conn.createArrayOf("int2", codecs));
+    }
+
+    private Object toArrayElement(VariableType type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (type) {
+            case INTEGER -> ((Number) value).longValue();
+            case FLOAT -> ((Number) value).doubleValue();
+            case JSON -> JsonUtil.toJson(value, metrics);
+            case TIMESTAMP -> Timestamp.from((Instant) value);
+            default -> value;
+        };
+    }
+
+    /**
+     * JSON values travel as {@code text[]} and are cast to {@code jsonb[]} in SQL.
+     */
+    private static String arrayElementType(VariableType type) {
+        return switch (type) {
+            case STRING, JSON -> "text";
+            case INTEGER -> "int8";
+            case FLOAT -> "float8";
+            case BOOLEAN -> "bool";
+            case TIMESTAMP -> "timestamptz";
+            case BINARY -> "bytea";
+            case UUID -> "uuid";
+        };
+    }
+
     public Optional<EntityInstance> findById(UUID id) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findById", () -> doFindById(id));
+    }
+
+    private Optional<EntityInstance> doFindById(UUID id) {
         String sql = """
             SELECT id, entity_id, uuid, status, registered_at, expires_at, context, metadata,
                    created_at, updated_at, created_by
@@ -98,6 +346,10 @@ public class EntityInstanceRepository {
     }
 
     public Optional<EntityInstance> findByUuid(UUID uuid) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByUuid", () -> doFindByUuid(uuid));
+    }
+
+    private Optional<EntityInstance> doFindByUuid(UUID uuid) {
         String sql = """
             SELECT id, entity_id, uuid, status, registered_at, expires_at, context, metadata,
                    created_at, updated_at, created_by
@@ -122,6 +374,10 @@ public class EntityInstanceRepository {
     }
 
     public List<EntityInstance> findByEntityId(UUID entityId) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByEntityId", () -> doFindByEntityId(entityId));
+    }
+
+    private List<EntityInstance> doFindByEntityId(UUID entityId) {
         String sql = """
             SELECT id, entity_id, uuid, status, registered_at, expires_at, context, metadata,
                    created_at, updated_at, created_by
@@ -147,23 +403,158 @@ public class EntityInstanceRepository {
         return result;
     }
 
+    /**
+     * Returns one page of an entity's instances, newest first, using keyset pagination over
+     * {@code (registered_at, id)}. Each page is a single index range scan no matter how deep
+     * the client pages.
+     */
+    public Page<EntityInstance> findPage(EntityInstancePageRequest request) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findPage", () -> doFindPage(request));
+    }
+
+    private Page<EntityInstance> doFindPage(EntityInstancePageRequest request) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, entity_id, uuid, status, registered_at, expires_at, context, metadata,
+                   created_at, updated_at, created_by
+            FROM entity_instances WHERE entity_id = ?
+            """);
+        if (request.status() != null) {
+            sql.append(" AND status = ?");
+        }
+        TimeRange range = request.registeredRange();
+        if (range.from() != null) {
+            sql.append(" AND registered_at >= ?");
+        }
+        if (range.to() != null) {
+            sql.append(" AND registered_at < ?");
+        }
+        KeysetToken after = request.pageToken() != null ? KeysetToken.decode(request.pageToken()) : null;
+        if (after != null) {
+            sql.append(" AND (registered_at, id) < (?, ?)");
+        }
+        sql.append(" ORDER BY registered_at DESC, id DESC LIMIT ?");
+
+        List<EntityInstance> items = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            int paramIdx = 1;
+            ps.setObject(paramIdx++, request.entityId());
+            if (request.status() != null) {
+                ps.setString(paramIdx++, request.status().name());
+            }
+            if (range.from() != null) {
+                ps.setTimestamp(paramIdx++, Timestamp.from(range.from()));
+            }
+            if (range.to() != null) {
+                ps.setTimestamp(paramIdx++, Timestamp.from(range.to()));
+            }
+            if (after != null) {
+                ps.setTimestamp(paramIdx++, Timestamp.from(after.registeredAt()));
+                ps.setObject(paramIdx++, after.id());
+            }
+            ps.setInt(paramIdx, request.pageSize() + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to find entity instance page", e);
+        }
+
+        return toPage(items, request.pageSize());
+    }
+
+    /**
+     * Finds instances whose variables match {@code query.where()}, newest first. The predicate
+     * is evaluated in PostgreSQL; see {@link VariableQueryCompiler}.
+     */
+    public Page<EntityInstance> findByQuery(VariableQuery query) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByQuery", () -> doFindByQuery(query));
+    }
+
+    private Page<EntityInstance> doFindByQuery(VariableQuery query) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT ei.id, ei.entity_id, ei.uuid, ei.status, ei.registered_at, ei.expires_at,
+                   ei.context, ei.metadata, ei.created_at, ei.updated_at, ei.created_by
+            FROM entity_instances ei WHERE ei.entity_id = ?
+            """);
+        if (query.status() != null) {
+            sql.append(" AND ei.status = ?");
+        }
+        SqlFragment where = query.where() != null
+                ? VariableQueryCompiler.compile(query.entityId(), query.where(), query.currentValuesOnly())
+                : null;
+        if (where != null) {
+            sql.append(" AND ").append(where.sql());
+        }
+        KeysetToken after = query.pageToken() != null ? KeysetToken.decode(query.pageToken()) : null;
+        if (after != null) {
+            sql.append(" AND (ei.registered_at, ei.id) < (?, ?)");
+        }
+        sql.append(" ORDER BY ei.registered_at DESC, ei.id DESC LIMIT ?");
+
+        List<EntityInstance> items = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            int paramIdx = 1;
+            ps.setObject(paramIdx++, query.entityId());
+            if (query.status() != null) {
+                ps.setString(paramIdx++, query.status().name());
+            }
+            if (where != null) {
+                for (Object param : where.parameters()) {
+                    ps.setObject(paramIdx++, param);
+                }
+            }
+            if (after != null) {
+                ps.setTimestamp(paramIdx++, Timestamp.from(after.registeredAt()));
+                ps.setObject(paramIdx++, after.id());
+            }
+            ps.setInt(paramIdx, query.limit() + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to query entity instances", e);
+        }
+
+        return toPage(items, query.limit());
+    }
+
+    /**
+     * @param items up to {@code pageSize + 1} rows; the extra row only signals a next page
+     */
+    private static Page<EntityInstance> toPage(List<EntityInstance> items, int pageSize) {
+        if (items.size() <= pageSize) {
+            return new Page<>(items, null);
+        }
+        List<EntityInstance> page = items.subList(0, pageSize);
+        EntityInstance last = page.getLast();
+        return new Page<>(page, new KeysetToken(last.registeredAt(), last.id()).encode());
+    }
+
     private EntityInstance mapRow(ResultSet rs) throws SQLException {
         return EntityInstance.builder()
                 .id((UUID) rs.getObject("id"))
                 .entityId((UUID) rs.getObject("entity_id"))
                 .uuid((UUID) rs.getObject("uuid"))
                 .status(EntityInstanceStatus.valueOf(rs.getString("status")))
-                .registeredAt(toInstant(rs.getTimestamp("registered_at")))
-                .expiresAt(toInstant(rs.getTimestamp("expires_at")))
-                .context(JsonUtil.fromJson(rs.getString("context")))
-                .metadata(JsonUtil.fromJson(rs.getString("metadata")))
-                .createdAt(toInstant(rs.getTimestamp("created_at")))
-                .updatedAt(toInstant(rs.getTimestamp("updated_at")))
+                .registeredAt(JdbcTimes.getInstant(rs, "registered_at"))
+                .expiresAt(JdbcTimes.getInstant(rs, "expires_at"))
+                .context(LazyJsonMap.of(rs.getString("context"), metrics))
+                .metadata(LazyJsonMap.of(rs.getString("metadata"), metrics))
+                .createdAt(JdbcTimes.getInstant(rs, "created_at"))
+                .updatedAt(JdbcTimes.getInstant(rs, "updated_at"))
                 .createdBy((UUID) rs.getObject("created_by"))
                 .build();
     }
-
-    private static Instant toInstant(Timestamp ts) {
-        return ts != null ? ts.toInstant() : null;
-    }
 }
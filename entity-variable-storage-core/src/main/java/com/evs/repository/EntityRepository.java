@@ -1,14 +1,15 @@
 package com.evs.repository;
 
+import com.evs.metrics.EVSMetrics;
 import com.evs.model.Entity;
 import com.evs.util.JsonUtil;
+import com.evs.util.LazyJsonMap;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,13 +18,25 @@ import java.util.UUID;
 
 public class EntityRepository {
 
+    private static final String REPOSITORY = "entity";
+
     private final DataSource dataSource;
+    private final EVSMetrics metrics;
 
     public EntityRepository(DataSource dataSource) {
+        this(dataSource, EVSMetrics.NOOP);
+    }
+
+    public EntityRepository(DataSource dataSource, EVSMetrics metrics) {
         this.dataSource = dataSource;
+        this.metrics = metrics;
     }
 
     public Entity save(Entity entity) {
+        return metrics.timeRepositoryCall(REPOSITORY, "save", () -> doSave(entity));
+    }
+
+    private Entity doSave(Entity entity) {
         String sql = """
             INSERT INTO entities (id, name, display_name, description, schema_definition,
                                  metadata, is_active, created_by)
@@ -39,15 +52,15 @@ public class EntityRepository {
             ps.setString(2, entity.name());
             ps.setString(3, entity.displayName());
             ps.setString(4, entity.description());
-            ps.setString(5, JsonUtil.toJson(entity.schemaDefinition()));
-            ps.setString(6, JsonUtil.toJson(entity.metadata()));
+            ps.setString(5, JsonUtil.toJson(entity.schemaDefinition(), metrics));
+            ps.setString(6, JsonUtil.toJson(entity.metadata(), metrics));
             ps.setBoolean(7, entity.isActive());
             ps.setObject(8, entity.createdBy());
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    Instant createdAt = toInstant(rs.getTimestamp("created_at"));
-                    Instant updatedAt = toInstant(rs.getTimestamp("updated_at"));
+                    Instant createdAt = JdbcTimes.getInstant(rs, "created_at");
+                    Instant updatedAt = JdbcTimes.getInstant(rs, "updated_at");
                     return Entity.builder()
                             .id(id)
                             .name(entity.name())
@@ -70,6 +83,10 @@ public class EntityRepository {
     }
 
     public Optional<Entity> findById(UUID id) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findById", () -> doFindById(id));
+    }
+
+    private Optional<Entity> doFindById(UUID id) {
         String sql = """
             SELECT id, name, display_name, description, schema_definition, metadata,
                    is_active, created_at, updated_at, created_by
@@ -94,6 +111,10 @@ public class EntityRepository {
     }
 
     public Optional<Entity> findByName(String name) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByName", () -> doFindByName(name));
+    }
+
+    private Optional<Entity> doFindByName(String name) {
         String sql = """
             SELECT id, name, display_name, description, schema_definition, metadata,
                    is_active, created_at, updated_at, created_by
@@ -118,6 +139,10 @@ public class EntityRepository {
     }
 
     public List<Entity> findAll() {
+        return metrics.timeRepositoryCall(REPOSITORY, "findAll", () -> doFindAll());
+    }
+
+    private List<Entity> doFindAll() {
         String sql = """
             SELECT id, name, display_name, description, schema_definition, metadata,
                    is_active, created_at, updated_at, created_by
@@ -146,16 +171,12 @@ public class EntityRepository {
                 .name(rs.getString("name"))
                 .displayName(rs.getString("display_name"))
                 .description(rs.getString("description"))
-                .schemaDefinition(JsonUtil.fromJson(rs.getString("schema_definition")))
-                .metadata(JsonUtil.fromJson(rs.getString("metadata")))
+                .schemaDefinition(LazyJsonMap.of(rs.getString("schema_definition"), metrics))
+                .metadata(LazyJsonMap.of(rs.getString("metadata"), metrics))
                 .isActive(rs.getBoolean("is_active"))
-                .createdAt(toInstant(rs.getTimestamp("created_at")))
-                .updatedAt(toInstant(rs.getTimestamp("updated_at")))
+                .createdAt(JdbcTimes.getInstant(rs, "created_at"))
+                .updatedAt(JdbcTimes.getInstant(rs, "updated_at"))
                 .createdBy((UUID) rs.getObject("created_by"))
                 .build();
     }
-
-    private static Instant toInstant(Timestamp ts) {
-        return ts != null ? ts.toInstant() : null;
-    }
 }
@@ -0,0 +1,26 @@
+package com.evs.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Reads {@code timestamptz} columns as {@link OffsetDateTime}, which pgjdbc decodes directly,
+ * instead of through {@link java.sql.Timestamp} and its calendar handling.
+ */
+final class JdbcTimes {
+
+    private JdbcTimes() {
+    }
+
+    static Instant getInstant(ResultSet rs, int column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+
+    static Instant getInstant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+}
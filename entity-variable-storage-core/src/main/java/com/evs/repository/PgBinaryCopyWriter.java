@@ -0,0 +1,130 @@
+package com.evs.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Encodes rows in the PostgreSQL {@code COPY ... (FORMAT binary)} wire format.
+ */
+final class PgBinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int JSONB_VERSION = 1;
+
+    /** Seconds between 1970-01-01 and the PostgreSQL epoch 2000-01-01 (UTC). */
+    private static final long PG_EPOCH_OFFSET_SECONDS = 946_684_800L;
+
+    private final DataOutputStream out;
+
+    PgBinaryCopyWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 65536));
+    }
+
+    void writeHeader() throws IOException {
+        out.write(SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    void startRow(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    void writeNull() throws IOException {
+        out.writeInt(-1);
+    }
+
+    void writeUuid(UUID value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeShort(short value) throws IOException {
+        out.writeInt(2);
+        out.writeShort(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    void writeDouble(double value) throws IOException {
+        out.writeInt(8);
+        out.writeDouble(value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        out.writeInt(1);
+        out.writeByte(value ? 1 : 0);
+    }
+
+    void writeJsonb(String json) throws IOException {
+        if (json == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length + 1);
+        out.writeByte(JSONB_VERSION);
+        out.write(bytes);
+    }
+
+    void writeTimestamp(Instant value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeTimestampMicros(toPgMicros(value));
+    }
+
+    void writeEpochMicros(long epochMicros) throws IOException {
+        writeTimestampMicros(epochMicros - PG_EPOCH_OFFSET_SECONDS * 1_000_000L);
+    }
+
+    void writeTimestampMicros(long pgMicros) throws IOException {
+        out.writeInt(8);
+        out.writeLong(pgMicros);
+    }
+
+    void writeBytes(byte[] value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Writes the end-of-data marker and flushes the underlying stream.
+     */
+    void finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+    }
+
+    static long toPgMicros(Instant value) {
+        return (value.getEpochSecond() - PG_EPOCH_OFFSET_SECONDS) * 1_000_000L + value.getNano() / 1_000;
+    }
+}
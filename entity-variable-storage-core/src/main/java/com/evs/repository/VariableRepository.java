@@ -1,46 +1,126 @@
 package com.evs.repository;
 
+import com.evs.codec.ValueCompression;
+import com.evs.config.EVSConfig;
+import com.evs.metrics.EVSMetrics;
+import com.evs.model.Downsampling;
+import com.evs.model.HistoryPoint;
+import com.evs.model.TimeRange;
 import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
 import com.evs.model.VariableType;
+import com.evs.query.AggregationRow;
+import com.evs.query.VariableAggregation;
 import com.evs.util.JsonUtil;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.postgresql.util.PGobject;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class VariableRepository {
 
     private static final int BATCH_SIZE = 1000;
+    private static final int ANY_CHUNK_SIZE = 1000;
+
+    /** Value columns are listed in {@link VariableType} declaration order; {@link #writeCopyRow} relies on it. */
+    private static final String COPY_SQL = """
+        COPY variables (
+            entity_id, entity_instance_id, variable_name, variable_type,
+            %s,
+            is_indexed, is_sensitive, is_encrypted, registered_at, created_by, value_codec
+        ) FROM STDIN (FORMAT binary)
+        """.formatted(Arrays.stream(VariableType.values())
+                .map(VariableType::getColumnName)
+                .collect(Collectors.joining(", ")));
+    private static final int COPY_FIELD_COUNT = 10 + VariableType.values().length;
+    private static final VariableType[] VARIABLE_TYPES = VariableType.values();
+
+    private static final String SELECT_COLUMNS = """
+        SELECT id, entity_id, entity_instance_id, variable_name, variable_type,
+               value_string, value_int, value_float, value_bool, value_json,
+               value_timestamp, value_binary, value_uuid, value_codec,
+               is_indexed, is_sensitive, is_encrypted,
+               registered_at, created_at, updated_at, created_by
+        FROM variables
+        """;
+
+    /**
+     * Orders the rows of one variable so the current row, or else the most recently registered
+     * one, comes last. Callers that collect by name into a map therefore keep the latest value.
+     */
+    private static final String LATEST_LAST = "is_current, registered_at, id";
+    private static final String LATEST_FIRST = "is_current DESC, registered_at DESC, id DESC";
+
+    /**
+     * Restricts a query to appended rows. The current row written by {@link #upsert(Variable)} is
+     * anchored at the instance's {@code registered_at} and, with {@code keepHistory}, duplicated
+     * by a history row at its real time, so it is not a point in the variable's history.
+     */
+    private static final String HISTORY_ROWS = " AND NOT is_current";
+
+    /**
+     * Restricts an aggregation to one row per written value: current rows only count when the
+     * entity does not keep history, as otherwise each of them is duplicated by an appended row.
+     */
+    private static final String AGGREGATED_ROWS = " AND (NOT v.is_current OR NOT COALESCE("
+            + "(SELECT (e.schema_definition ->> 'keepHistory')::boolean FROM entities e WHERE e.id = ?), false))";
+
+    /** {@code @?} (jsonpath exists); pgjdbc needs the {@code ?} doubled to not read it as a placeholder. */
+    private static final String JSON_PATH_EXISTS = "value_json @?? ?::jsonpath";
+
+    private static final String REPOSITORY = "variable";
 
     private final DataSource dataSource;
+    private final int streamFetchSize;
+    private final EVSMetrics metrics;
+    private final ValueCompression compression;
 
     public VariableRepository(DataSource dataSource) {
+        this(dataSource, new EVSConfig());
+    }
+
+    public VariableRepository(DataSource dataSource, EVSConfig config) {
         this.dataSource = dataSource;
+        this.streamFetchSize = config.getStreamFetchSize();
+        this.metrics = config.getMetrics();
+        this.compression = ValueCompression.from(config);
     }
 
     public Variable save(Variable variable) {
-        String sql = buildInsertSql(variable.variableType());
+        return metrics.timeRepositoryCall(REPOSITORY, "save", () -> doSave(variable));
+    }
 
+    private Variable doSave(Variable variable) {
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = conn.prepareStatement(VariableSqlTemplates.insert(variable.variableType(), 1))) {
 
             setParameters(ps, variable);
-            ps.executeUpdate();
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
+            try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return Variable.builder()
                             .from(variable)
@@ -56,6 +136,11 @@ public class VariableRepository {
     }
 
     public List<Variable> saveBatch(List<Variable> variables) {
+        metrics.recordBatchRows("saveBatch", variables.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "saveBatch", () -> doSaveBatch(variables));
+    }
+
+    private List<Variable> doSaveBatch(List<Variable> variables) {
         if (variables.isEmpty()) {
             return List.of();
         }
@@ -64,40 +149,33 @@ public class VariableRepository {
         Map<VariableType, List<Variable>> byType = variables.stream()
                 .collect(Collectors.groupingBy(Variable::variableType));
 
-        for (List<Variable> typeGroup : byType.values()) {
-            for (int i = 0; i < typeGroup.size(); i += BATCH_SIZE) {
-                List<Variable> batch = typeGroup.subList(i, Math.min(i + BATCH_SIZE, typeGroup.size()));
-                result.addAll(saveBatchInternal(batch));
+        try (Connection conn = dataSource.getConnection()) {
+            for (Map.Entry<VariableType, List<Variable>> group : byType.entrySet()) {
+                List<Variable> typeGroup = group.getValue();
+                int offset = 0;
+                for (int rows : VariableSqlTemplates.split(typeGroup.size())) {
+                    result.addAll(saveBatchInternal(conn, group.getKey(), typeGroup.subList(offset, offset + rows)));
+                    offset += rows;
+                }
             }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to batch save variables", e);
         }
 
         return result;
     }
 
-    private List<Variable> saveBatchInternal(List<Variable> variables) {
-        StringBuilder sql = new StringBuilder();
-        VariableType type = variables.getFirst().variableType();
-        String baseSql = """
-            INSERT INTO variables (
-                entity_id, entity_instance_id, variable_name, variable_type,
-                %s, is_indexed, is_sensitive, is_encrypted, registered_at, created_by
-            ) VALUES
-            """.formatted(type.getColumnName());
-
-        sql.append(baseSql);
-        for (int i = 0; i < variables.size(); i++) {
-            if (i > 0) sql.append(", ");
-            sql.append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-        }
-        sql.append(" RETURNING id");
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+    /**
+     * @param variables exactly one of {@link VariableSqlTemplates#BATCH_SHAPES} rows
+     */
+    private List<Variable> saveBatchInternal(Connection conn, VariableType type, List<Variable> variables)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(VariableSqlTemplates.insert(type, variables.size()))) {
 
             int paramIdx = 1;
             for (Variable v : variables) {
                 setParametersAtIndex(ps, paramIdx, v);
-                paramIdx += 10;
+                paramIdx += VariableSqlTemplates.INSERT_ROW_PARAMETERS;
             }
 
             List<Variable> result = new ArrayList<>();
@@ -112,12 +190,407 @@ public class VariableRepository {
                 }
             }
             return result;
+        }
+    }
+
+    /**
+     * Streams variables into the table with {@code COPY ... FROM STDIN (FORMAT binary)}.
+     * Unlike {@link #saveBatch(List)} no SQL text is built per row and generated ids are not
+     * returned, which makes this the fastest path for bulk ingestion.
+     *
+     * @return number of rows written
+     */
+    public long copyBatch(List<Variable> variables) {
+        metrics.recordBatchRows("copyBatch", variables.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "copyBatch", () -> doCopyBatch(variables));
+    }
+
+    private long doCopyBatch(List<Variable> variables) {
+        if (variables.isEmpty()) {
+            return 0;
+        }
+
+        Instant now = Instant.now();
+        return copy(writer -> {
+            for (Variable v : variables) {
+                writeCopyRow(writer, v, now);
+            }
+        });
+    }
+
+    /**
+     * {@link #copyBatch(List)} for a columnar batch: rows are encoded straight from the batch
+     * columns, without a {@link Variable} or boxed value per row.
+     *
+     * @return number of rows written
+     */
+    public long copyBatch(VariableBatch batch) {
+        metrics.recordBatchRows("copyBatch", batch.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "copyBatch", () -> doCopyBatch(batch));
+    }
+
+    private long doCopyBatch(VariableBatch batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long nowMicros = epochMicros(Instant.now());
+        return copy(writer -> {
+            for (int row = 0; row < batch.size(); row++) {
+                writeCopyRow(writer, batch, row, nowMicros);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CopyRows {
+        void write(PgBinaryCopyWriter writer) throws IOException;
+    }
+
+    private long copy(CopyRows rows) {
+        try (Connection conn = dataSource.getConnection()) {
+            PGConnection pgConn = conn.unwrap(PGConnection.class);
+            PGCopyOutputStream copyOut = new PGCopyOutputStream(pgConn, COPY_SQL);
+            try {
+                PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyOut);
+                writer.writeHeader();
+                rows.write(writer);
+                writer.finish();
+                return copyOut.endCopy();
+            } finally {
+                if (copyOut.isActive()) {
+                    copyOut.cancelCopy();
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new com.evs.exception.EVSException("Failed to copy variables", e);
+        }
+    }
+
+    private void writeCopyRow(PgBinaryCopyWriter writer, VariableBatch batch, int row, long nowMicros)
+            throws IOException {
+        VariableType type = batch.type(row);
+        boolean isNull = batch.isNull(row);
+        short codec = ValueCompression.UNCOMPRESSED;
+
+        writer.startRow(COPY_FIELD_COUNT);
+        writer.writeUuid(batch.entityId());
+        writer.writeUuid(batch.instanceId(row));
+        writer.writeText(batch.name(row));
+        writer.writeText(type.name());
+
+        for (VariableType column : VARIABLE_TYPES) {
+            if (column != type || isNull) {
+                writer.writeNull();
+                continue;
+            }
+            switch (type) {
+                case INTEGER -> writer.writeLong(batch.longValue(row));
+                case FLOAT -> writer.writeDouble(batch.doubleValue(row));
+                case BOOLEAN -> writer.writeBoolean(batch.booleanValue(row));
+                case TIMESTAMP -> writer.writeEpochMicros(batch.timestampMicros(row));
+                case STRING -> writer.writeText((String) batch.objectValue(row));
+                case JSON -> writer.writeJsonb(JsonUtil.toJson(batch.objectValue(row), metrics));
+                case BINARY -> codec = writeBinary(writer, (byte[]) batch.objectValue(row));
+                case UUID -> writer.writeUuid((UUID) batch.objectValue(row));
+            }
+        }
+
+        writer.writeBoolean(false);
+        writer.writeBoolean(false);
+        writer.writeBoolean(false);
+        writer.writeEpochMicros(batch.hasRegisteredAt(row) ? batch.registeredAtMicros(row) : nowMicros);
+        writer.writeUuid(batch.createdBy());
+        writer.writeShort(codec);
+    }
+
+    /**
+     * @return the {@code value_codec} of the written bytes
+     */
+    private short writeBinary(PgBinaryCopyWriter writer, byte[] value) throws IOException {
+        ValueCompression.Encoded encoded = compression.encode(value);
+        writer.writeBytes(encoded.bytes());
+        return encoded.codec();
+    }
+
+    /**
+     * Writes a columnar batch with multi-row inserts from {@link VariableSqlTemplates}, binding
+     * primitive values directly. Generated ids are discarded.
+     *
+     * @return number of rows written
+     */
+    public long insertBatch(VariableBatch batch) {
+        metrics.recordBatchRows("insertBatch", batch.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "insertBatch", () -> doInsertBatch(batch));
+    }
+
+    private long doInsertBatch(VariableBatch batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        int[][] rowsByType = new int[VARIABLE_TYPES.length][];
+        int[] counts = new int[VARIABLE_TYPES.length];
+        for (int row = 0; row < batch.size(); row++) {
+            counts[batch.type(row).ordinal()]++;
+        }
+        for (int t = 0; t < VARIABLE_TYPES.length; t++) {
+            rowsByType[t] = new int[counts[t]];
+            counts[t] = 0;
+        }
+        for (int row = 0; row < batch.size(); row++) {
+            int t = batch.type(row).ordinal();
+            rowsByType[t][counts[t]++] = row;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        long written = 0;
+
+        try (Connection conn = dataSource.getConnection()) {
+            for (VariableType type : VARIABLE_TYPES) {
+                int[] rows = rowsByType[type.ordinal()];
+                int offset = 0;
+                for (int shape : VariableSqlTemplates.split(rows.length)) {
+                    try (PreparedStatement ps = conn.prepareStatement(VariableSqlTemplates.insert(type, shape))) {
+                        int paramIdx = 1;
+                        for (int i = offset; i < offset + shape; i++) {
+                            setBatchParameters(ps, paramIdx, batch, rows[i], now);
+                            paramIdx += VariableSqlTemplates.INSERT_ROW_PARAMETERS;
+                        }
+                        ps.execute();
+                    }
+                    offset += shape;
+                    written += shape;
+                }
+            }
         } catch (SQLException e) {
-            throw new com.evs.exception.EVSException("Failed to batch save variables", e);
+            throw new com.evs.exception.EVSException("Failed to batch insert variables", e);
+        }
+
+        return written;
+    }
+
+    private void setBatchParameters(PreparedStatement ps, int startIdx, VariableBatch batch, int row,
+                                    Timestamp now) throws SQLException {
+        VariableType type = batch.type(row);
+        short codec = ValueCompression.UNCOMPRESSED;
+        ps.setObject(startIdx, batch.entityId());
+        ps.setObject(startIdx + 1, batch.instanceId(row));
+        ps.setString(startIdx + 2, batch.name(row));
+        ps.setString(startIdx + 3, type.name());
+
+        int valueIdx = startIdx + 4;
+        if (batch.isNull(row)) {
+            ps.setNull(valueIdx, java.sql.Types.NULL);
+        } else {
+            switch (type) {
+                case INTEGER -> ps.setLong(valueIdx, batch.longValue(row));
+                case FLOAT -> ps.setDouble(valueIdx, batch.doubleValue(row));
+                case BOOLEAN -> ps.setBoolean(valueIdx, batch.booleanValue(row));
+                case TIMESTAMP -> ps.setTimestamp(valueIdx, toTimestamp(batch.timestampMicros(row)));
+                case STRING -> ps.setString(valueIdx, (String) batch.objectValue(row));
+                case JSON -> setJsonbParameter(ps, valueIdx, batch.objectValue(row));
+                case BINARY -> codec = setBinaryParameter(ps, valueIdx, (byte[]) batch.objectValue(row));
+                case UUID -> ps.setObject(valueIdx, batch.objectValue(row));
+            }
+        }
+
+        ps.setBoolean(startIdx + 5, false);
+        ps.setBoolean(startIdx + 6, false);
+        ps.setBoolean(startIdx + 7, false);
+        ps.setTimestamp(startIdx + 8, batch.hasRegisteredAt(row) ? toTimestamp(batch.registeredAtMicros(row)) : now);
+        ps.setObject(startIdx + 9, batch.createdBy());
+        ps.setShort(startIdx + 10, codec);
+    }
+
+    private static long epochMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static Timestamp toTimestamp(long epochMicros) {
+        Timestamp ts = new Timestamp(Math.floorDiv(epochMicros, 1000L));
+        ts.setNanos((int) Math.floorMod(epochMicros, 1_000_000L) * 1000);
+        return ts;
+    }
+
+    private void writeCopyRow(PgBinaryCopyWriter writer, Variable v, Instant defaultRegisteredAt) throws IOException {
+        VariableType type = v.variableType();
+        Object value = v.value();
+        short codec = ValueCompression.UNCOMPRESSED;
+
+        writer.startRow(COPY_FIELD_COUNT);
+        writer.writeUuid(v.entityId());
+        writer.writeUuid(v.entityInstanceId());
+        writer.writeText(v.variableName());
+        writer.writeText(type.name());
+
+        for (VariableType column : VARIABLE_TYPES) {
+            if (column != type || value == null) {
+                writer.writeNull();
+                continue;
+            }
+            switch (type) {
+                case STRING -> writer.writeText((String) value);
+                case INTEGER -> writer.writeLong(((Number) value).longValue());
+                case FLOAT -> writer.writeDouble(((Number) value).doubleValue());
+                case BOOLEAN -> writer.writeBoolean((Boolean) value);
+                case JSON -> writer.writeJsonb(JsonUtil.toJson(value, metrics));
+                case TIMESTAMP -> writer.writeTimestamp((Instant) value);
+                case BINARY -> codec = writeBinary(writer, (byte[]) value);
+                case UUID -> writer.writeUuid((UUID) value);
+            }
+        }
+
+        writer.writeBoolean(v.isIndexed());
+        writer.writeBoolean(v.isSensitive());
+        writer.writeBoolean(v.isEncrypted());
+        writer.writeTimestamp(v.registeredAt() != null ? v.registeredAt() : defaultRegisteredAt);
+        writer.writeUuid(v.createdBy());
+        writer.writeShort(codec);
+    }
+
+    /**
+     * Sets the current value of a variable, updating it in place when the instance already has
+     * one ({@code INSERT ... ON CONFLICT DO UPDATE} on {@code uq_variables_current}).
+     * <p>
+     * The current row is stored at the instance's {@code registered_at} and its entity id is
+     * taken from the instance; {@code variable.entityId()} is ignored. When the entity's
+     * {@code schema_definition} contains {@code "keepHistory": true}, the value is additionally
+     * appended as a history row at {@code variable.registeredAt()} (or now) in the same statement.
+     *
+     * @return the current row, with its id and timestamps
+     */
+    public Variable upsert(Variable variable) {
+        return metrics.timeRepositoryCall(REPOSITORY, "upsert", () -> doUpsert(variable));
+    }
+
+    private Variable doUpsert(Variable variable) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(VariableSqlTemplates.upsert(variable.variableType(), true))) {
+
+            setUpsertParameters(ps, variable);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Variable.builder()
+                            .from(variable)
+                            .id(rs.getLong("id"))
+                            .entityId(rs.getObject("entity_id", UUID.class))
+                            .registeredAt(JdbcTimes.getInstant(rs, "registered_at"))
+                            .createdAt(JdbcTimes.getInstant(rs, "created_at"))
+                            .updatedAt(JdbcTimes.getInstant(rs, "updated_at"))
+                            .build();
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to set variable", e);
+        }
+
+        throw new com.evs.exception.EVSException("Entity instance not found: " + variable.entityInstanceId());
+    }
+
+    /**
+     * Batch variant of {@link #upsert(Variable)}. All rows are written in one transaction using
+     * JDBC batching; a variable whose instance does not exist is skipped.
+     *
+     * @return number of variables whose current value was set
+     */
+    public int upsertBatch(List<Variable> variables) {
+        metrics.recordBatchRows("upsertBatch", variables.size());
+        return metrics.timeRepositoryCall(REPOSITORY, "upsertBatch", () -> doUpsertBatch(variables));
+    }
+
+    private int doUpsertBatch(List<Variable> variables) {
+        if (variables.isEmpty()) {
+            return 0;
+        }
+
+        Map<VariableType, List<Variable>> byType = variables.stream()
+                .collect(Collectors.groupingBy(Variable::variableType));
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int written = 0;
+                for (Map.Entry<VariableType, List<Variable>> group : byType.entrySet()) {
+                    try (PreparedStatement ps = conn.prepareStatement(VariableSqlTemplates.upsert(group.getKey(), false))) {
+                        List<Variable> typeGroup = group.getValue();
+                        for (int i = 0; i < typeGroup.size(); i += BATCH_SIZE) {
+                            for (Variable v : typeGroup.subList(i, Math.min(i + BATCH_SIZE, typeGroup.size()))) {
+                                setUpsertParameters(ps, v);
+                                ps.addBatch();
+                            }
+                            // each statement's count is its current row: 1, or 0 for a missing instance
+                            for (int count : ps.executeBatch()) {
+                                written += count;
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+                return written;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to batch set variables", e);
+        }
+    }
+
+    /**
+     * Binds {@link VariableSqlTemplates#upsert}: the instance id, then the history row (the only
+     * one with an explicit {@code registered_at}), then the current row.
+     */
+    private void setUpsertParameters(PreparedStatement ps, Variable v) throws SQLException {
+        Object value = v.value();
+        short codec = ValueCompression.UNCOMPRESSED;
+        if (v.variableType() == VariableType.BINARY) {
+            ValueCompression.Encoded encoded = compression.encode((byte[]) value);
+            value = encoded.bytes();
+            codec = encoded.codec();
+        }
+
+        int idx = 1;
+        ps.setObject(idx++, v.entityInstanceId());
+
+        for (int row = 0; row < 2; row++) {
+            ps.setObject(idx++, v.entityInstanceId());
+            ps.setString(idx++, v.variableName());
+            ps.setString(idx++, v.variableType().name());
+            setValueParameter(ps, idx++, v.variableType(), value);
+            ps.setBoolean(idx++, v.isIndexed());
+            ps.setBoolean(idx++, v.isSensitive());
+            ps.setBoolean(idx++, v.isEncrypted());
+            if (row == 0) {
+                ps.setTimestamp(idx++, v.registeredAt() != null ? Timestamp.from(v.registeredAt()) : null);
+            }
+            ps.setObject(idx++, v.createdBy());
+            ps.setShort(idx++, codec);
+        }
+    }
+
+    /**
+     * Binds a value of {@code type}, keeping {@code null} as SQL NULL.
+     */
+    private void setValueParameter(PreparedStatement ps, int index, VariableType type, Object value) throws SQLException {
+        switch (type) {
+            case STRING -> ps.setString(index, (String) value);
+            case INTEGER -> ps.setObject(index, value != null ? ((Number) value).longValue() : null);
+            case FLOAT -> ps.setObject(index, value != null ? ((Number) value).doubleValue() : null);
+            case BOOLEAN -> ps.setObject(index, value);
+            case JSON -> setJsonbParameter(ps, index, value);
+            case TIMESTAMP -> ps.setTimestamp(index, value != null ? Timestamp.from((Instant) value) : null);
+            case BINARY -> ps.setBytes(index, (byte[]) value);
+            case UUID -> ps.setObject(index, value);
         }
     }
 
     private void setParametersAtIndex(PreparedStatement ps, int startIdx, Variable variable) throws SQLException {
+        short codec = ValueCompression.UNCOMPRESSED;
         ps.setObject(startIdx, variable.entityId());
         ps.setObject(startIdx + 1, variable.entityInstanceId());
         ps.setString(startIdx + 2, variable.variableName());
@@ -130,7 +603,7 @@ public class VariableRepository {
             case BOOLEAN -> ps.setBoolean(startIdx + 4, variable.value() != null && (Boolean) variable.value());
             case JSON -> setJsonbParameter(ps, startIdx + 4, variable.value());
             case TIMESTAMP -> ps.setTimestamp(startIdx + 4, variable.value() != null ? Timestamp.from((Instant) variable.value()) : null);
-            case BINARY -> ps.setBytes(startIdx + 4, (byte[]) variable.value());
+            case BINARY -> codec = setBinaryParameter(ps, startIdx + 4, (byte[]) variable.value());
             case UUID -> ps.setObject(startIdx + 4, variable.value());
             default -> throw new IllegalArgumentException("Unsupported variable type: " + variable.variableType());
         }
@@ -139,18 +612,23 @@ public class VariableRepository {
         ps.setBoolean(startIdx + 7, variable.isEncrypted());
         ps.setTimestamp(startIdx + 8, variable.registeredAt() != null ? Timestamp.from(variable.registeredAt()) : Timestamp.from(Instant.now()));
         ps.setObject(startIdx + 9, variable.createdBy());
+        ps.setShort(startIdx + 10, codec);
     }
 
     public List<Variable> findByEntityInstanceId(UUID entityInstanceId) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByEntityInstanceId", () -> doFindByEntityInstanceId(entityInstanceId));
+    }
+
+    private List<Variable> doFindByEntityInstanceId(UUID entityInstanceId) {
         String sql = """
             SELECT id, entity_id, entity_instance_id, variable_name, variable_type,
                    value_string, value_int, value_float, value_bool, value_json,
-                   value_timestamp, value_binary, value_uuid,
+                   value_timestamp, value_binary, value_uuid, value_codec,
                    is_indexed, is_sensitive, is_encrypted,
                    registered_at, created_at, updated_at, created_by
             FROM variables
             WHERE entity_instance_id = ?
-            ORDER BY variable_name
+            ORDER BY variable_name, is_current, registered_at, id
             """;
 
         List<Variable> result = new ArrayList<>();
@@ -161,8 +639,9 @@ public class VariableRepository {
             ps.setObject(1, entityInstanceId);
 
             try (ResultSet rs = ps.executeQuery()) {
+                VariableRowMapper mapper = new VariableRowMapper(rs, compression, metrics);
                 while (rs.next()) {
-                    result.add(mapRow(rs));
+                    result.add(mapper.map());
                 }
             }
         } catch (SQLException e) {
@@ -173,14 +652,20 @@ public class VariableRepository {
     }
 
     public Optional<Variable> findByInstanceIdAndName(UUID instanceId, String variableName) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByInstanceIdAndName", () -> doFindByInstanceIdAndName(instanceId, variableName));
+    }
+
+    private Optional<Variable> doFindByInstanceIdAndName(UUID instanceId, String variableName) {
         String sql = """
             SELECT id, entity_id, entity_instance_id, variable_name, variable_type,
                    value_string, value_int, value_float, value_bool, value_json,
-                   value_timestamp, value_binary, value_uuid,
+                   value_timestamp, value_binary, value_uuid, value_codec,
                    is_indexed, is_sensitive, is_encrypted,
                    registered_at, created_at, updated_at, created_by
             FROM variables
             WHERE entity_instance_id = ? AND variable_name = ?
+            ORDER BY is_current DESC, registered_at DESC, id DESC
+            LIMIT 1
             """;
 
         try (Connection conn = dataSource.getConnection();
@@ -191,7 +676,79 @@ public class VariableRepository {
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRow(rs));
+                    return Optional.of(new VariableRowMapper(rs, compression, metrics).map());
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to find variable", e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Finds variables of an instance constrained by {@code entity_id} and an optional
+     * {@code registered_at} window, so the planner only touches the entity's partition and
+     * the monthly sub-partitions overlapping {@code range}. Current rows kept by
+     * {@link #upsert(Variable)} are returned whatever the window.
+     */
+    public List<Variable> findByEntityInstanceId(UUID entityId, UUID entityInstanceId, TimeRange range) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByEntityInstanceId", () -> doFindByEntityInstanceId(entityId, entityInstanceId, range));
+    }
+
+    private List<Variable> doFindByEntityInstanceId(UUID entityId, UUID entityInstanceId, TimeRange range) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append("WHERE entity_id = ? AND entity_instance_id = ?");
+        appendTimeRangeWithCurrent(sql, range);
+        sql.append(" ORDER BY variable_name, ").append(LATEST_LAST);
+
+        List<Variable> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setObject(1, entityId);
+            ps.setObject(2, entityInstanceId);
+            bindTimeRangeWithCurrent(ps, 3, range, entityInstanceId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                VariableRowMapper mapper = new VariableRowMapper(rs, compression, metrics);
+                while (rs.next()) {
+                    result.add(mapper.map());
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to find variables by instance", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Partition-pruned variant of {@link #findByInstanceIdAndName(UUID, String)}. The current row
+     * kept by {@link #upsert(Variable)} is found whatever the window.
+     */
+    public Optional<Variable> findByInstanceIdAndName(UUID entityId, UUID instanceId, String variableName, TimeRange range) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByInstanceIdAndName", () -> doFindByInstanceIdAndName(entityId, instanceId, variableName, range));
+    }
+
+    private Optional<Variable> doFindByInstanceIdAndName(UUID entityId, UUID instanceId, String variableName, TimeRange range) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append("WHERE entity_id = ? AND entity_instance_id = ? AND variable_name = ?");
+        appendTimeRangeWithCurrent(sql, range);
+        sql.append(" ORDER BY ").append(LATEST_FIRST).append(" LIMIT 1");
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setObject(1, entityId);
+            ps.setObject(2, instanceId);
+            ps.setString(3, variableName);
+            bindTimeRangeWithCurrent(ps, 4, range, instanceId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new VariableRowMapper(rs, compression, metrics).map());
                 }
             }
         } catch (SQLException e) {
@@ -201,13 +758,537 @@ public class VariableRepository {
         return Optional.empty();
     }
 
-    private String buildInsertSql(VariableType type) {
-        return String.format("""
-            INSERT INTO variables (
-                entity_id, entity_instance_id, variable_name, variable_type,
-                %s, is_indexed, is_sensitive, is_encrypted, registered_at, created_by
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """, type.getColumnName());
+    /**
+     * Reads the appended rows of one variable of one instance within {@code range}, ordered by
+     * {@code registered_at}; the current row kept by {@link #upsert(Variable)} is not part of the
+     * history. Only the monthly partitions covering {@code range} are scanned.
+     *
+     * @param newestFirst {@code true} for descending order, so {@code limit} keeps the latest rows
+     * @param limit       maximum number of rows
+     */
+    public List<Variable> findHistory(UUID entityId, UUID instanceId, String variableName, TimeRange range,
+                                      boolean newestFirst, int limit) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findHistory",
+                () -> doFindHistory(entityId, instanceId, variableName, range, newestFirst, limit));
+    }
+
+    private List<Variable> doFindHistory(UUID entityId, UUID instanceId, String variableName, TimeRange range,
+                                         boolean newestFirst, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append("WHERE entity_id = ? AND entity_instance_id = ? AND variable_name = ?")
+                .append(HISTORY_ROWS);
+        appendTimeRange(sql, range);
+        sql.append(newestFirst ? " ORDER BY registered_at DESC, id DESC" : " ORDER BY registered_at, id")
+                .append(" LIMIT ?");
+
+        List<Variable> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setObject(1, entityId);
+            ps.setObject(2, instanceId);
+            ps.setString(3, variableName);
+            int idx = bindTimeRange(ps, 4, range);
+            ps.setInt(idx, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                VariableRowMapper mapper = new VariableRowMapper(rs, compression, metrics);
+                while (rs.next()) {
+                    result.add(mapper.map());
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to read variable history", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reduces the numeric history of one variable to one point per {@code bucket} in SQL,
+     * using {@code date_bin} aligned to the Unix epoch. Like {@link #findHistory} only appended
+     * rows are included. Points are returned oldest first; empty buckets are omitted.
+     */
+    public List<HistoryPoint> findDownsampledHistory(UUID entityId, UUID instanceId, String variableName,
+                                                     TimeRange range, Duration bucket, Downsampling downsampling) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findDownsampledHistory",
+                () -> doFindDownsampledHistory(entityId, instanceId, variableName, range, bucket, downsampling));
+    }
+
+    private List<HistoryPoint> doFindDownsampledHistory(UUID entityId, UUID instanceId, String variableName,
+                                                        TimeRange range, Duration bucket, Downsampling downsampling) {
+        if (bucket.isNegative() || bucket.isZero()) {
+            throw new IllegalArgumentException("bucket must be positive");
+        }
+        StringBuilder sql = new StringBuilder(buildDownsampleSelect(downsampling))
+                .append("WHERE entity_id = ? AND entity_instance_id = ? AND variable_name = ?")
+                .append(" AND (value_float IS NOT NULL OR value_int IS NOT NULL)")
+                .append(HISTORY_ROWS);
+        appendTimeRange(sql, range);
+        sql.append(" GROUP BY 1 ORDER BY 1");
+
+        List<HistoryPoint> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setLong(1, bucket.toMillis());
+            ps.setObject(2, entityId);
+            ps.setObject(3, instanceId);
+            ps.setString(4, variableName);
+            bindTimeRange(ps, 5, range);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new HistoryPoint(JdbcTimes.getInstant(rs, 1), getDouble(rs, 2), rs.getLong(3)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to read downsampled variable history", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * INTEGER and FLOAT variables are reduced together as {@code float8}; the bucket width is
+     * bound in milliseconds.
+     */
+    static String buildDownsampleSelect(Downsampling downsampling) {
+        String value = "coalesce(value_float, value_int::float8)";
+        String reduced = switch (downsampling) {
+            case LAST -> "(array_agg(" + value + " ORDER BY registered_at DESC, id DESC))[1]";
+            case AVG -> "avg(" + value + ")";
+            case MIN -> "min(" + value + ")";
+            case MAX -> "max(" + value + ")";
+        };
+        return "SELECT date_bin(? * interval '1 millisecond', registered_at, timestamptz '1970-01-01 00:00:00+00'), "
+                + reduced + ", count(*) FROM variables ";
+    }
+
+    /**
+     * Finds the variables of many instances with one {@code entity_instance_id = ANY(?)} query
+     * per chunk of {@value #ANY_CHUNK_SIZE} ids.
+     *
+     * @param entityIds     entities the instances belong to, used for partition pruning; may be {@code null}
+     * @param variableNames optional name filter; {@code null} or empty returns all variables
+     */
+    public List<Variable> findByEntityInstanceIds(Collection<UUID> entityIds, Collection<UUID> entityInstanceIds,
+                                                  Collection<String> variableNames) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByEntityInstanceIds", () -> doFindByEntityInstanceIds(entityIds, entityInstanceIds, variableNames));
+    }
+
+    private List<Variable> doFindByEntityInstanceIds(Collection<UUID> entityIds, Collection<UUID> entityInstanceIds,
+                                                  Collection<String> variableNames) {
+        if (entityInstanceIds.isEmpty()) {
+            return List.of();
+        }
+
+        boolean filterEntities = entityIds != null && !entityIds.isEmpty();
+        boolean filterNames = variableNames != null && !variableNames.isEmpty();
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append("WHERE entity_instance_id = ANY(?)");
+        if (filterEntities) {
+            sql.append(" AND entity_id = ANY(?)");
+        }
+        if (filterNames) {
+            sql.append(" AND variable_name = ANY(?)");
+        }
+        sql.append(" ORDER BY entity_instance_id, variable_name, ").append(LATEST_LAST);
+
+        List<UUID> ids = List.copyOf(entityInstanceIds);
+        List<Variable> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < ids.size(); i += ANY_CHUNK_SIZE) {
+                List<UUID> chunk = ids.subList(i, Math.min(i + ANY_CHUNK_SIZE, ids.size()));
+                int paramIdx = 1;
+                ps.setArray(paramIdx++, conn.createArrayOf("uuid", chunk.toArray()));
+                if (filterEntities) {
+                    ps.setArray(paramIdx++, conn.createArrayOf("uuid", entityIds.toArray()));
+                }
+                if (filterNames) {
+                    ps.setArray(paramIdx, conn.createArrayOf("varchar", variableNames.toArray()));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    VariableRowMapper mapper = new VariableRowMapper(rs, compression, metrics);
+                    while (rs.next()) {
+                        result.add(mapper.map());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to find variables by instances", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Streams all variables of an entity within {@code range} through a server-side cursor.
+     * Rows are fetched {@code streamFetchSize} at a time, so memory stays flat regardless of
+     * result size. Rows come in no particular order.
+     * <p>
+     * The stream holds a connection and an open transaction until it is closed; always use it
+     * in a try-with-resources block.
+     */
+    public Stream<Variable> streamByEntity(UUID entityId, TimeRange range) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append("WHERE entity_id = ?");
+        appendTimeRange(sql, range);
+
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        VariableRowMapper mapper;
+        try {
+            conn = dataSource.getConnection();
+            // pgjdbc only uses a cursor (honours fetchSize) outside autocommit
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            ps.setObject(1, entityId);
+            bindTimeRange(ps, 2, range);
+            rs = ps.executeQuery();
+            mapper = new VariableRowMapper(rs, compression, metrics);
+        } catch (SQLException e) {
+            closeCursor(conn, ps, rs);
+            throw new com.evs.exception.EVSException("Failed to stream variables by entity", e);
+        }
+
+        Connection cursorConn = conn;
+        PreparedStatement cursorPs = ps;
+        ResultSet cursorRs = rs;
+        Spliterator<Variable> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Variable> action) {
+                try {
+                    if (!cursorRs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map());
+                    return true;
+                } catch (SQLException e) {
+                    throw new com.evs.exception.EVSException("Failed to read streamed variable", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeCursor(cursorConn, cursorPs, cursorRs));
+    }
+
+    /**
+     * Callback variant of {@link #streamByEntity(UUID, TimeRange)} that manages the stream itself.
+     *
+     * @return number of variables passed to {@code consumer}
+     */
+    public long forEachByEntity(UUID entityId, TimeRange range, Consumer<Variable> consumer) {
+        long[] count = {0};
+        try (Stream<Variable> stream = streamByEntity(entityId, range)) {
+            stream.forEach(v -> {
+                consumer.accept(v);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    private static void closeCursor(Connection conn, PreparedStatement ps, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+        } catch (SQLException ignored) {
+            // the connection is rolled back and released below regardless
+        }
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        } catch (SQLException ignored) {
+            // a broken connection is evicted by the pool on close
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Finds JSON variables of an entity whose value contains {@code document}
+     * ({@code value_json @> document}), served by the {@code jsonb_path_ops} GIN index.
+     *
+     * @param document any value {@link JsonUtil} can serialize, typically a partial map
+     */
+    public List<Variable> findByJsonContains(UUID entityId, String variableName, Object document, TimeRange range) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByJsonContains",
+                () -> findByJson(entityId, variableName, "value_json @> ?::jsonb", JsonUtil.toJson(document, metrics), range));
+    }
+
+    /**
+     * Finds JSON variables of an entity for which the SQL/JSON path {@code jsonPath} returns
+     * any item, e.g. {@code $.items[*] ? (@.qty > 10)}. Uses the {@code @?} operator, which
+     * unlike {@code jsonb_path_exists()} can use the GIN index.
+     */
+    public List<Variable> findByJsonPath(UUID entityId, String variableName, String jsonPath, TimeRange range) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByJsonPath",
+                () -> findByJson(entityId, variableName, JSON_PATH_EXISTS, jsonPath, range));
+    }
+
+    /**
+     * Finds JSON variables of an entity whose top-level object has {@code key}. Expressed as the
+     * path {@code $."key"} so it is served by the same index as the other JSON lookups.
+     */
+    public List<Variable> findByJsonKeyExists(UUID entityId, String variableName, String key, TimeRange range) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findByJsonKeyExists",
+                () -> findByJson(entityId, variableName, JSON_PATH_EXISTS, keyPath(key), range));
+    }
+
+    private List<Variable> findByJson(UUID entityId, String variableName, String condition, String argument,
+                                      TimeRange range) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append("WHERE entity_id = ? AND variable_name = ? AND ").append(condition);
+        appendTimeRange(sql, range);
+
+        List<Variable> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setObject(1, entityId);
+            ps.setString(2, variableName);
+            ps.setString(3, argument);
+            bindTimeRange(ps, 4, range);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                VariableRowMapper mapper = new VariableRowMapper(rs, compression, metrics);
+                while (rs.next()) {
+                    result.add(mapper.map());
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to query JSON variables", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * {@code $."key"} with {@code "} and {@code \} escaped as in a JSON string.
+     */
+    static String keyPath(String key) {
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Computes count/sum/avg/min/max and the requested percentiles of numeric variables in the
+     * database, pruned to the entity's partition and the aggregation's time window. Values set
+     * with {@link #upsert(Variable)} count once: through their current row, or for
+     * {@code keepHistory} entities through their appended history row. Rows whose value column
+     * is null are ignored.
+     */
+    public List<AggregationRow> aggregate(VariableAggregation aggregation) {
+        return metrics.timeRepositoryCall(REPOSITORY, "aggregate", () -> doAggregate(aggregation));
+    }
+
+    private List<AggregationRow> doAggregate(VariableAggregation aggregation) {
+        String sql = buildAggregationSql(aggregation);
+        List<Double> percentiles = aggregation.percentiles();
+        List<AggregationRow> result = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int idx = 1;
+            if (!percentiles.isEmpty()) {
+                ps.setArray(idx++, conn.createArrayOf("float8", percentiles.toArray()));
+            }
+            if (aggregation.groupBy() == VariableAggregation.GroupBy.STRING_VARIABLE) {
+                ps.setObject(idx++, aggregation.entityId());
+                ps.setString(idx++, aggregation.groupVariable());
+            }
+            ps.setObject(idx++, aggregation.entityId());
+            ps.setArray(idx++, conn.createArrayOf("text", aggregation.variableNames().toArray()));
+            ps.setObject(idx++, aggregation.entityId());
+            bindTimeRange(ps, idx, aggregation.range());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(mapAggregationRow(rs, aggregation));
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to aggregate variables", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the aggregation query. Grouping by a STRING variable joins that variable's latest
+     * value per instance, so history rows of the grouping variable do not multiply the input.
+     * Percentiles are computed by a single {@code percentile_cont(float8[])} call.
+     */
+    static String buildAggregationSql(VariableAggregation aggregation) {
+        String column = "v." + aggregation.valueType().getColumnName();
+        String group = switch (aggregation.groupBy()) {
+            case NONE -> "NULL::text";
+            case VARIABLE_NAME -> "v.variable_name";
+            case STRING_VARIABLE -> "g.value_string";
+            case TIME_BUCKET -> "date_trunc('" + aggregation.bucket().unit() + "', v.registered_at, 'UTC')";
+        };
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(group).append(" AS grp, ")
+                .append("count(").append(column).append("), ")
+                .append("sum(").append(column).append(")::float8, ")
+                .append("avg(").append(column).append(")::float8, ")
+                .append("min(").append(column).append(")::float8, ")
+                .append("max(").append(column).append(")::float8");
+        if (!aggregation.percentiles().isEmpty()) {
+            sql.append(", percentile_cont(?::float8[]) WITHIN GROUP (ORDER BY ").append(column).append(")");
+        }
+        sql.append(" FROM variables v");
+        if (aggregation.groupBy() == VariableAggregation.GroupBy.STRING_VARIABLE) {
+            sql.append(" LEFT JOIN LATERAL (SELECT value_string FROM variables gv")
+                    .append(" WHERE gv.entity_id = ? AND gv.entity_instance_id = v.entity_instance_id")
+                    .append(" AND gv.variable_name = ?")
+                    .append(" ORDER BY gv.is_current DESC, gv.registered_at DESC, gv.id DESC LIMIT 1) g ON true");
+        }
+        sql.append(" WHERE v.entity_id = ? AND v.variable_name = ANY(?) AND ").append(column).append(" IS NOT NULL")
+                .append(AGGREGATED_ROWS);
+        appendTimeRange(sql, aggregation.range());
+        if (aggregation.groupBy() != VariableAggregation.GroupBy.NONE) {
+            sql.append(" GROUP BY 1 ORDER BY 1");
+        }
+        return sql.toString();
+    }
+
+    private static AggregationRow mapAggregationRow(ResultSet rs, VariableAggregation aggregation) throws SQLException {
+        String group = null;
+        Instant bucket = null;
+        if (aggregation.groupBy() == VariableAggregation.GroupBy.TIME_BUCKET) {
+            bucket = JdbcTimes.getInstant(rs, 1);
+        } else {
+            group = rs.getString(1);
+        }
+
+        Map<Double, Double> percentiles = new LinkedHashMap<>();
+        if (!aggregation.percentiles().isEmpty()) {
+            java.sql.Array array = rs.getArray(7);
+            if (array != null) {
+                Double[] values = (Double[]) array.getArray();
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        percentiles.put(aggregation.percentiles().get(i), values[i]);
+                    }
+                }
+            }
+        }
+
+        return new AggregationRow(group, bucket, rs.getLong(2), getDouble(rs, 3), getDouble(rs, 4),
+                getDouble(rs, 5), getDouble(rs, 6), percentiles);
+    }
+
+    private static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Resolves the entity (and therefore the LIST partition) an instance belongs to.
+     */
+    public Optional<UUID> findEntityIdByInstanceId(UUID entityInstanceId) {
+        return metrics.timeRepositoryCall(REPOSITORY, "findEntityIdByInstanceId", () -> doFindEntityIdByInstanceId(entityInstanceId));
+    }
+
+    private Optional<UUID> doFindEntityIdByInstanceId(UUID entityInstanceId) {
+        String sql = "SELECT entity_id FROM entity_instances WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setObject(1, entityInstanceId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(rs.getObject(1, UUID.class));
+                }
+            }
+        } catch (SQLException e) {
+            throw new com.evs.exception.EVSException("Failed to resolve entity for instance", e);
+        }
+
+        return Optional.empty();
+    }
+
+    static void appendTimeRange(StringBuilder sql, TimeRange range) {
+        if (range == null) {
+            return;
+        }
+        if (range.from() != null) {
+            sql.append(" AND registered_at >= ?");
+        }
+        if (range.to() != null) {
+            sql.append(" AND registered_at < ?");
+        }
+    }
+
+    /**
+     * Binds the bounds appended by {@link #appendTimeRange} starting at {@code index}.
+     *
+     * @return the next free parameter index
+     */
+    static int bindTimeRange(PreparedStatement ps, int index, TimeRange range) throws SQLException {
+        if (range == null) {
+            return index;
+        }
+        if (range.from() != null) {
+            ps.setTimestamp(index++, Timestamp.from(range.from()));
+        }
+        if (range.to() != null) {
+            ps.setTimestamp(index++, Timestamp.from(range.to()));
+        }
+        return index;
+    }
+
+    /**
+     * Like {@link #appendTimeRange}, but also keeps the current rows, which are anchored at the
+     * instance's {@code registered_at} and so usually lie outside {@code range}. Matching them on
+     * that exact timestamp still lets PostgreSQL prune to the partition holding them.
+     */
+    static void appendTimeRangeWithCurrent(StringBuilder sql, TimeRange range) {
+        if (range == null || (range.from() == null && range.to() == null)) {
+            return;
+        }
+        sql.append(" AND (is_current AND registered_at = (SELECT ei.registered_at FROM entity_instances ei WHERE ei.id = ?)");
+        StringBuilder window = new StringBuilder();
+        appendTimeRange(window, range);
+        sql.append(" OR (").append(window.substring(" AND ".length())).append("))");
+    }
+
+    /**
+     * Binds the parameters appended by {@link #appendTimeRangeWithCurrent} starting at {@code index}.
+     *
+     * @return the next free parameter index
+     */
+    static int bindTimeRangeWithCurrent(PreparedStatement ps, int index, TimeRange range, UUID instanceId)
+            throws SQLException {
+        if (range == null || (range.from() == null && range.to() == null)) {
+            return index;
+        }
+        ps.setObject(index++, instanceId);
+        return bindTimeRange(ps, index, range);
     }
 
     private void setParameters(PreparedStatement ps, Variable variable) throws SQLException {
@@ -216,6 +1297,7 @@ public class VariableRepository {
         ps.setString(3, variable.variableName());
         ps.setString(4, variable.variableType().name());
 
+        short codec = ValueCompression.UNCOMPRESSED;
         int paramIdx = 5;
         switch (variable.variableType()) {
             case STRING -> ps.setString(paramIdx, (String) variable.value());
@@ -224,7 +1306,7 @@ public class VariableRepository {
             case BOOLEAN -> ps.setObject(paramIdx, variable.value());
             case JSON -> setJsonbParameter(ps, paramIdx, variable.value());
             case TIMESTAMP -> ps.setTimestamp(paramIdx, variable.value() != null ? Timestamp.from((Instant) variable.value()) : null);
-            case BINARY -> ps.setBytes(paramIdx, (byte[]) variable.value());
+            case BINARY -> codec = setBinaryParameter(ps, paramIdx, (byte[]) variable.value());
             case UUID -> ps.setObject(paramIdx, variable.value());
             default -> throw new IllegalArgumentException("Unsupported variable type: " + variable.variableType());
         }
@@ -233,58 +1315,23 @@ public class VariableRepository {
         ps.setBoolean(paramIdx++, variable.isSensitive());
         ps.setBoolean(paramIdx++, variable.isEncrypted());
         ps.setTimestamp(paramIdx++, variable.registeredAt() != null ? Timestamp.from(variable.registeredAt()) : Timestamp.from(Instant.now()));
-        ps.setObject(paramIdx, variable.createdBy());
-    }
-
-    private Variable mapRow(ResultSet rs) throws SQLException {
-        VariableType type = VariableType.valueOf(rs.getString("variable_type"));
-        Object value = getValueByType(rs, type);
-
-        return Variable.builder()
-                .id(rs.getLong("id"))
-                .entityId((UUID) rs.getObject("entity_id"))
-                .entityInstanceId((UUID) rs.getObject("entity_instance_id"))
-                .variableName(rs.getString("variable_name"))
-                .variableType(type)
-                .value(value)
-                .isIndexed(rs.getBoolean("is_indexed"))
-                .isSensitive(rs.getBoolean("is_sensitive"))
-                .isEncrypted(rs.getBoolean("is_encrypted"))
-                .registeredAt(toInstant(rs.getTimestamp("registered_at")))
-                .createdAt(toInstant(rs.getTimestamp("created_at")))
-                .updatedAt(toInstant(rs.getTimestamp("updated_at")))
-                .createdBy((UUID) rs.getObject("created_by"))
-                .build();
-    }
-
-    private Object getValueByType(ResultSet rs, VariableType type) throws SQLException {
-        return switch (type) {
-            case STRING -> rs.getString("value_string");
-            case INTEGER -> {
-                long v = rs.getLong("value_int");
-                yield rs.wasNull() ? null : v;
-            }
-            case FLOAT -> {
-                double v = rs.getDouble("value_float");
-                yield rs.wasNull() ? null : v;
-            }
-            case BOOLEAN -> {
-                boolean v = rs.getBoolean("value_bool");
-                yield rs.wasNull() ? null : v;
-            }
-            case JSON -> JsonUtil.fromJson(rs.getString("value_json"));
-            case TIMESTAMP -> toInstant(rs.getTimestamp("value_timestamp"));
-            case BINARY -> rs.getBytes("value_binary");
-            case UUID -> rs.getObject("value_uuid", UUID.class);
-        };
+        ps.setObject(paramIdx++, variable.createdBy());
+        ps.setShort(paramIdx, codec);
     }
 
-    private static Instant toInstant(Timestamp ts) {
-        return ts != null ? ts.toInstant() : null;
+    /**
+     * Binds a binary value, compressed when it reaches the configured threshold.
+     *
+     * @return the {@code value_codec} to store with it
+     */
+    private short setBinaryParameter(PreparedStatement ps, int index, byte[] value) throws SQLException {
+        ValueCompression.Encoded encoded = compression.encode(value);
+        ps.setBytes(index, encoded.bytes());
+        return encoded.codec();
     }
 
-    private static void setJsonbParameter(PreparedStatement ps, int index, Object value) throws SQLException {
-        String json = JsonUtil.toJson(value);
+    private void setJsonbParameter(PreparedStatement ps, int index, Object value) throws SQLException {
+        String json = JsonUtil.toJson(value, metrics);
         if (json != null) {
             PGobject pgObject = new PGobject();
             pgObject.setType("jsonb");
@@ -0,0 +1,113 @@
+package com.evs.repository;
+
+import com.evs.codec.ValueCompression;
+import com.evs.metrics.EVSMetrics;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import com.evs.util.LazyJsonMap;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Maps the rows of one {@code variables} result set to {@link Variable}s. Column positions are
+ * resolved once when the mapper is created, so create one per executed statement and call
+ * {@link #map()} for each row. Records are constructed directly, without a builder. Binary values
+ * are decompressed according to their {@code value_codec}.
+ */
+final class VariableRowMapper {
+
+    private static final VariableType[] TYPES = VariableType.values();
+
+    private final ResultSet rs;
+    private final ValueCompression compression;
+    private final EVSMetrics metrics;
+    private final int id;
+    private final int entityId;
+    private final int entityInstanceId;
+    private final int variableName;
+    private final int variableType;
+    private final int[] valueColumns = new int[TYPES.length];
+    private final int valueCodec;
+    private final int isIndexed;
+    private final int isSensitive;
+    private final int isEncrypted;
+    private final int registeredAt;
+    private final int createdAt;
+    private final int updatedAt;
+    private final int createdBy;
+
+    VariableRowMapper(ResultSet rs, ValueCompression compression) throws SQLException {
+        this(rs, compression, EVSMetrics.NOOP);
+    }
+
+    VariableRowMapper(ResultSet rs, ValueCompression compression, EVSMetrics metrics) throws SQLException {
+        this.rs = rs;
+        this.compression = compression;
+        this.metrics = metrics;
+        this.id = rs.findColumn("id");
+        this.entityId = rs.findColumn("entity_id");
+        this.entityInstanceId = rs.findColumn("entity_instance_id");
+        this.variableName = rs.findColumn("variable_name");
+        this.variableType = rs.findColumn("variable_type");
+        for (VariableType type : TYPES) {
+            valueColumns[type.ordinal()] = rs.findColumn(type.getColumnName());
+        }
+        this.valueCodec = rs.findColumn("value_codec");
+        this.isIndexed = rs.findColumn("is_indexed");
+        this.isSensitive = rs.findColumn("is_sensitive");
+        this.isEncrypted = rs.findColumn("is_encrypted");
+        this.registeredAt = rs.findColumn("registered_at");
+        this.createdAt = rs.findColumn("created_at");
+        this.updatedAt = rs.findColumn("updated_at");
+        this.createdBy = rs.findColumn("created_by");
+    }
+
+    /**
+     * Maps the current row.
+     */
+    Variable map() throws SQLException {
+        VariableType type = VariableType.fromName(rs.getString(variableType));
+        return new Variable(
+                rs.getLong(id),
+                rs.getObject(entityId, UUID.class),
+                rs.getObject(entityInstanceId, UUID.class),
+                rs.getString(variableName),
+                type,
+                readValue(type, valueColumns[type.ordinal()]),
+                rs.getBoolean(isIndexed),
+                rs.getBoolean(isSensitive),
+                rs.getBoolean(isEncrypted),
+                JdbcTimes.getInstant(rs, registeredAt),
+                JdbcTimes.getInstant(rs, createdAt),
+                JdbcTimes.getInstant(rs, updatedAt),
+                rs.getObject(createdBy, UUID.class));
+    }
+
+    /**
+     * Reads only the value column of {@code type}; primitives are read unboxed and boxed once
+     * (small integers come from the {@link Long} cache).
+     */
+    private Object readValue(VariableType type, int column) throws SQLException {
+        return switch (type) {
+            case STRING -> rs.getString(column);
+            case INTEGER -> {
+                long v = rs.getLong(column);
+                yield rs.wasNull() ? null : v;
+            }
+            case FLOAT -> {
+                double v = rs.getDouble(column);
+                yield rs.wasNull() ? null : v;
+            }
+            case BOOLEAN -> {
+                boolean v = rs.getBoolean(column);
+                yield rs.wasNull() ? null : v;
+            }
+            case JSON -> LazyJsonMap.of(rs.getString(column), metrics);
+            case TIMESTAMP -> JdbcTimes.getInstant(rs, column);
+            case BINARY -> compression.decode(rs.getShort(valueCodec), rs.getBytes(column));
+            case UUID -> rs.getObject(column, UUID.class);
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.evs.repository;
+
+import com.evs.model.VariableType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Write-path SQL of {@link VariableRepository}, built once per {@link VariableType} and never
+ * modified. Multi-row inserts only come in the fixed sizes of {@link #BATCH_SHAPES}, so every
+ * batch maps to the same few statement texts; pgjdbc caches them per connection and, after
+ * {@code prepareThreshold} executions, reuses their server-side prepared plans instead of
+ * parsing and planning a new statement for every batch size.
+ */
+final class VariableSqlTemplates {
+
+    /**
+     * Rows per multi-row insert, largest first. Powers of two, so any remainder below the largest
+     * shape takes at most one statement per set bit (999 rows: 8 statements).
+     */
+    static final int[] BATCH_SHAPES = {1024, 512, 256, 128, 64, 32, 16, 8, 4, 2, 1};
+
+    /** Parameters per row of {@link #insert}: the ten columns of {@link #buildBatchInsertSql} and {@code value_codec}. */
+    static final int INSERT_ROW_PARAMETERS = 11;
+
+    private static final Map<VariableType, Templates> TEMPLATES = new EnumMap<>(VariableType.class);
+
+    static {
+        for (VariableType type : VariableType.values()) {
+            String[] inserts = new String[BATCH_SHAPES.length];
+            for (int i = 0; i < BATCH_SHAPES.length; i++) {
+                inserts[i] = buildBatchInsertSql(type, BATCH_SHAPES[i]);
+            }
+            TEMPLATES.put(type, new Templates(inserts, buildUpsertSql(type, true), buildUpsertSql(type, false)));
+        }
+    }
+
+    private record Templates(String[] inserts, String upsertReturning, String upsert) {
+    }
+
+    private VariableSqlTemplates() {
+    }
+
+    /**
+     * {@code INSERT ... RETURNING id} for {@code rows} variables.
+     *
+     * @param rows one of {@link #BATCH_SHAPES}
+     */
+    static String insert(VariableType type, int rows) {
+        String[] inserts = TEMPLATES.get(type).inserts();
+        for (int i = 0; i < BATCH_SHAPES.length; i++) {
+            if (BATCH_SHAPES[i] == rows) {
+                return inserts[i];
+            }
+        }
+        throw new IllegalArgumentException("No insert template for " + rows + " rows");
+    }
+
+    static String upsert(VariableType type, boolean returning) {
+        Templates templates = TEMPLATES.get(type);
+        return returning ? templates.upsertReturning() : templates.upsert();
+    }
+
+    /**
+     * Splits {@code rows} into batch shapes, largest first; e.g. 1234 becomes
+     * {@code [1024, 128, 64, 16, 2]}.
+     */
+    static List<Integer> split(int rows) {
+        List<Integer> shapes = new ArrayList<>();
+        int remaining = rows;
+        for (int shape : BATCH_SHAPES) {
+            while (remaining >= shape) {
+                shapes.add(shape);
+                remaining -= shape;
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * Multi-row {@code INSERT ... RETURNING id} for {@code rows} variables of one type.
+     */
+    static String buildBatchInsertSql(VariableType type, int rows) {
+        StringBuilder sql = new StringBuilder();
+        String baseSql = """
+            INSERT INTO variables (
+                entity_id, entity_instance_id, variable_name, variable_type,
+                %s, is_indexed, is_sensitive, is_encrypted, registered_at, created_by, value_codec
+            ) VALUES
+            """.formatted(type.getColumnName());
+
+        sql.append(baseSql);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(" RETURNING id");
+        return sql.toString();
+    }
+
+    /**
+     * Builds the set-variable statement: the history row is inserted in a CTE only for entities
+     * with {@code keepHistory}, and the current row is upserted. With {@code returning} the
+     * statement yields the current row; without it the upsert is the top-level statement, so it
+     * can be used with {@link java.sql.PreparedStatement#addBatch()} and its update count is the
+     * number of current rows written (0 when the instance does not exist).
+     */
+    static String buildUpsertSql(VariableType type, boolean returning) {
+        String column = type.getColumnName();
+        String value = "?::" + type.getSqlType();
+        String resetValues = Arrays.stream(VariableType.values())
+                .map(t -> t.getColumnName() + " = EXCLUDED." + t.getColumnName())
+                .collect(Collectors.joining(", "));
+
+        String history = """
+            INSERT INTO variables (
+                entity_id, entity_instance_id, variable_name, variable_type,
+                %1$s, is_indexed, is_sensitive, is_encrypted, registered_at, created_by, value_codec
+            )
+            SELECT inst.entity_id, ?::uuid, ?, ?, %2$s, ?::boolean, ?::boolean, ?::boolean,
+                   COALESCE(?::timestamptz, now()), ?::uuid, ?::smallint
+            FROM inst
+            JOIN entities e ON e.id = inst.entity_id
+            WHERE COALESCE((e.schema_definition ->> 'keepHistory')::boolean, false)
+            """.formatted(column, value);
+
+        String current = """
+            INSERT INTO variables (
+                entity_id, entity_instance_id, variable_name, variable_type,
+                %1$s, is_indexed, is_sensitive, is_encrypted, registered_at, created_by, value_codec, is_current
+            )
+            SELECT inst.entity_id, ?::uuid, ?, ?, %2$s, ?::boolean, ?::boolean, ?::boolean,
+                   inst.registered_at, ?::uuid, ?::smallint, true
+            FROM inst
+            ON CONFLICT (entity_id, entity_instance_id, variable_name, registered_at) WHERE is_current
+            DO UPDATE SET variable_type = EXCLUDED.variable_type, %3$s, value_codec = EXCLUDED.value_codec,
+                is_indexed = EXCLUDED.is_indexed, is_sensitive = EXCLUDED.is_sensitive,
+                is_encrypted = EXCLUDED.is_encrypted, updated_at = now()
+            """.formatted(column, value, resetValues);
+
+        String sql = """
+            WITH inst AS (
+                SELECT entity_id, registered_at FROM entity_instances WHERE id = ?
+            ), hist AS (
+            %s)
+            """.formatted(history);
+
+        if (returning) {
+            return sql + ", cur AS (\n" + current + "RETURNING id, entity_id, registered_at, created_at, updated_at\n)\nSELECT * FROM cur";
+        }
+        return sql + current;
+    }
+}
@@ -0,0 +1,64 @@
+package com.evs.service;
+
+import com.evs.model.EntityInstance;
+import com.evs.model.EntityInstancePageRequest;
+import com.evs.model.EntityInstanceWithVariables;
+import com.evs.model.Page;
+import com.evs.model.Variable;
+import com.evs.query.VariableQuery;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link EntityInstanceService}; every call runs on an {@link EVSAsyncExecutor}.
+ */
+public class AsyncEntityInstanceService {
+
+    private final EntityInstanceService entityInstanceService;
+    private final EVSAsyncExecutor executor;
+
+    public AsyncEntityInstanceService(EntityInstanceService entityInstanceService, EVSAsyncExecutor executor) {
+        this.entityInstanceService = entityInstanceService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<EntityInstance> createInstance(EntityInstance instance) {
+        return executor.submit(() -> entityInstanceService.createInstance(instance));
+    }
+
+    public CompletableFuture<EntityInstanceWithVariables> createInstanceWithVariables(EntityInstance instance,
+                                                                                      List<Variable> variables) {
+        return executor.submit(() -> entityInstanceService.createInstanceWithVariables(instance, variables));
+    }
+
+    public CompletableFuture<EntityInstance> getInstance(UUID id) {
+        return executor.submit(() -> entityInstanceService.getInstance(id));
+    }
+
+    public CompletableFuture<EntityInstance> getInstanceByUuid(UUID uuid) {
+        return executor.submit(() -> entityInstanceService.getInstanceByUuid(uuid));
+    }
+
+    public CompletableFuture<Optional<EntityInstance>> findById(UUID id) {
+        return executor.submit(() -> entityInstanceService.findById(id));
+    }
+
+    public CompletableFuture<Optional<EntityInstance>> findByUuid(UUID uuid) {
+        return executor.submit(() -> entityInstanceService.findByUuid(uuid));
+    }
+
+    public CompletableFuture<List<EntityInstance>> findByEntityId(UUID entityId) {
+        return executor.submit(() -> entityInstanceService.findByEntityId(entityId));
+    }
+
+    public CompletableFuture<Page<EntityInstance>> findPage(EntityInstancePageRequest request) {
+        return executor.submit(() -> entityInstanceService.findPage(request));
+    }
+
+    public CompletableFuture<Page<EntityInstance>> query(VariableQuery query) {
+        return executor.submit(() -> entityInstanceService.query(query));
+    }
+}
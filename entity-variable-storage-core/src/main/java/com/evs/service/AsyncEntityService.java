@@ -0,0 +1,46 @@
+package com.evs.service;
+
+import com.evs.model.Entity;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link EntityService}; every call runs on an {@link EVSAsyncExecutor}.
+ */
+public class AsyncEntityService {
+
+    private final EntityService entityService;
+    private final EVSAsyncExecutor executor;
+
+    public AsyncEntityService(EntityService entityService, EVSAsyncExecutor executor) {
+        this.entityService = entityService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Entity> createEntity(Entity entity) {
+        return executor.submit(() -> entityService.createEntity(entity));
+    }
+
+    public CompletableFuture<Entity> getEntity(UUID id) {
+        return executor.submit(() -> entityService.getEntity(id));
+    }
+
+    public CompletableFuture<Entity> getEntityByName(String name) {
+        return executor.submit(() -> entityService.getEntityByName(name));
+    }
+
+    public CompletableFuture<Optional<Entity>> findById(UUID id) {
+        return executor.submit(() -> entityService.findById(id));
+    }
+
+    public CompletableFuture<Optional<Entity>> findByName(String name) {
+        return executor.submit(() -> entityService.findByName(name));
+    }
+
+    public CompletableFuture<List<Entity>> findAll() {
+        return executor.submit(entityService::findAll);
+    }
+}
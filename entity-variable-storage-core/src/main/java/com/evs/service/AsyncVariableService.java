@@ -0,0 +1,150 @@
+package com.evs.service;
+
+import com.evs.model.Downsampling;
+import com.evs.model.HistoryPoint;
+import com.evs.model.TimeRange;
+import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
+import com.evs.query.AggregationRow;
+import com.evs.query.VariableAggregation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of {@link VariableService}; every call runs on an {@link EVSAsyncExecutor}.
+ * {@link VariableService#streamVariablesByEntity} has no counterpart, as its stream holds a
+ * connection until the caller closes it; use {@link #forEachVariableByEntity} instead.
+ */
+public class AsyncVariableService {
+
+    private final VariableService variableService;
+    private final EVSAsyncExecutor executor;
+
+    public AsyncVariableService(VariableService variableService, EVSAsyncExecutor executor) {
+        this.variableService = variableService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Variable> createVariable(Variable variable) {
+        return executor.submit(() -> variableService.createVariable(variable));
+    }
+
+    public CompletableFuture<List<Variable>> createVariablesBatch(List<Variable> variables) {
+        return executor.submit(() -> variableService.createVariablesBatch(variables));
+    }
+
+    public CompletableFuture<Variable> setVariable(Variable variable) {
+        return executor.submit(() -> variableService.setVariable(variable));
+    }
+
+    public CompletableFuture<Integer> setVariablesBatch(List<Variable> variables) {
+        return executor.submit(() -> variableService.setVariablesBatch(variables));
+    }
+
+    public CompletableFuture<Long> ingestVariables(List<Variable> variables) {
+        return executor.submit(() -> variableService.ingestVariables(variables));
+    }
+
+    public CompletableFuture<Long> ingestVariables(VariableBatch batch) {
+        return executor.submit(() -> variableService.ingestVariables(batch));
+    }
+
+    public CompletableFuture<List<Variable>> getVariablesByInstance(UUID instanceId) {
+        return executor.submit(() -> variableService.getVariablesByInstance(instanceId));
+    }
+
+    public CompletableFuture<List<Variable>> getVariablesByInstance(UUID instanceId, TimeRange range) {
+        return executor.submit(() -> variableService.getVariablesByInstance(instanceId, range));
+    }
+
+    public CompletableFuture<List<Variable>> getVariablesByInstance(UUID entityId, UUID instanceId, TimeRange range) {
+        return executor.submit(() -> variableService.getVariablesByInstance(entityId, instanceId, range));
+    }
+
+    public CompletableFuture<Optional<Variable>> getVariable(UUID instanceId, String variableName) {
+        return executor.submit(() -> variableService.getVariable(instanceId, variableName));
+    }
+
+    public CompletableFuture<Optional<Variable>> getVariable(UUID instanceId, String variableName, TimeRange range) {
+        return executor.submit(() -> variableService.getVariable(instanceId, variableName, range));
+    }
+
+    public CompletableFuture<Optional<Variable>> getVariable(UUID entityId, UUID instanceId, String variableName,
+                                                             TimeRange range) {
+        return executor.submit(() -> variableService.getVariable(entityId, instanceId, variableName, range));
+    }
+
+    public CompletableFuture<Map<String, Object>> getVariablesAsMap(UUID instanceId) {
+        return executor.submit(() -> variableService.getVariablesAsMap(instanceId));
+    }
+
+    public CompletableFuture<Map<UUID, Map<String, Object>>> getVariablesForInstances(Collection<UUID> instanceIds) {
+        return executor.submit(() -> variableService.getVariablesForInstances(instanceIds));
+    }
+
+    public CompletableFuture<Map<UUID, Map<String, Object>>> getVariablesForInstances(Collection<UUID> instanceIds,
+                                                                                      Collection<String> variableNames) {
+        return executor.submit(() -> variableService.getVariablesForInstances(instanceIds, variableNames));
+    }
+
+    public CompletableFuture<List<Variable>> getHistory(UUID instanceId, String variableName, Instant from, Instant to) {
+        return executor.submit(() -> variableService.getHistory(instanceId, variableName, from, to));
+    }
+
+    public CompletableFuture<List<Variable>> getHistory(UUID instanceId, String variableName, TimeRange range,
+                                                        boolean newestFirst, int limit) {
+        return executor.submit(() -> variableService.getHistory(instanceId, variableName, range, newestFirst, limit));
+    }
+
+    public CompletableFuture<List<HistoryPoint>> getDownsampledHistory(UUID instanceId, String variableName, TimeRange range,
+                                                                       Duration bucket, Downsampling downsampling) {
+        return executor.submit(() -> variableService.getDownsampledHistory(instanceId, variableName, range, bucket, downsampling));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonContains(UUID entityId, String variableName, Object document) {
+        return executor.submit(() -> variableService.findByJsonContains(entityId, variableName, document));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonContains(UUID entityId, String variableName, Object document,
+                                                                TimeRange range) {
+        return executor.submit(() -> variableService.findByJsonContains(entityId, variableName, document, range));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonPath(UUID entityId, String variableName, String jsonPath) {
+        return executor.submit(() -> variableService.findByJsonPath(entityId, variableName, jsonPath));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonPath(UUID entityId, String variableName, String jsonPath,
+                                                            TimeRange range) {
+        return executor.submit(() -> variableService.findByJsonPath(entityId, variableName, jsonPath, range));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonKeyExists(UUID entityId, String variableName, String key) {
+        return executor.submit(() -> variableService.findByJsonKeyExists(entityId, variableName, key));
+    }
+
+    public CompletableFuture<List<Variable>> findByJsonKeyExists(UUID entityId, String variableName, String key,
+                                                                 TimeRange range) {
+        return executor.submit(() -> variableService.findByJsonKeyExists(entityId, variableName, key, range));
+    }
+
+    public CompletableFuture<List<AggregationRow>> aggregate(VariableAggregation aggregation) {
+        return executor.submit(() -> variableService.aggregate(aggregation));
+    }
+
+    /**
+     * Runs {@link VariableService#forEachVariableByEntity} on the executor; {@code consumer} is
+     * called on the executor's thread.
+     */
+    public CompletableFuture<Long> forEachVariableByEntity(UUID entityId, TimeRange range, Consumer<Variable> consumer) {
+        return executor.submit(() -> variableService.forEachVariableByEntity(entityId, range, consumer));
+    }
+}
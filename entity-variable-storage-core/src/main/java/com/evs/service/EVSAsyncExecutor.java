@@ -0,0 +1,65 @@
+package com.evs.service;
+
+import com.evs.exception.EVSException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking EVS calls on virtual threads, admitting at most {@code maxConcurrency} at a time.
+ * <p>
+ * The limit should match the connection pool size: callers beyond it wait on a semaphore
+ * (cheap for a virtual thread) instead of queueing inside the pool and hitting its
+ * connection timeout.
+ */
+public class EVSAsyncExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public EVSAsyncExecutor(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("evs-async-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EVSException("Interrupted while waiting for a database slot", e);
+            }
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return number of tasks currently waiting for a slot
+     */
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
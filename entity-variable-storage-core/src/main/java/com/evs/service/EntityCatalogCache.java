@@ -0,0 +1,70 @@
+package com.evs.service;
+
+import com.evs.model.Entity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process cache of entity definitions, indexed by id and by name.
+ * <p>
+ * Entries expire {@code ttlMillis} after they were loaded so changes made by other nodes
+ * become visible eventually; local writes invalidate explicitly. Misses are not cached.
+ */
+public class EntityCatalogCache {
+
+    private final Cache<UUID, Entity> byId;
+    private final Cache<String, Entity> byName;
+
+    public EntityCatalogCache(long maximumSize, long ttlMillis) {
+        this.byId = newCache(maximumSize, ttlMillis);
+        this.byName = newCache(maximumSize, ttlMillis);
+    }
+
+    private static <K> Cache<K, Entity> newCache(long maximumSize, long ttlMillis) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize);
+        if (ttlMillis > 0) {
+            builder.expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    public Optional<Entity> getById(UUID id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<Entity> getByName(String name) {
+        return Optional.ofNullable(byName.getIfPresent(name));
+    }
+
+    public void put(Entity entity) {
+        byId.put(entity.id(), entity);
+        byName.put(entity.name(), entity);
+    }
+
+    /**
+     * Replaces the cached catalog with {@code entities}.
+     */
+    public void replaceAll(Collection<Entity> entities) {
+        invalidateAll();
+        entities.forEach(this::put);
+    }
+
+    public void invalidate(Entity entity) {
+        byId.invalidate(entity.id());
+        byName.invalidate(entity.name());
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byName.invalidateAll();
+    }
+
+    public long size() {
+        return byId.size();
+    }
+}
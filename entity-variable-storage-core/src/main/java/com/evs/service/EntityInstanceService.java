@@ -2,6 +2,11 @@ package com.evs.service;
 
 import com.evs.exception.EVSException;
 import com.evs.model.EntityInstance;
+import com.evs.model.EntityInstancePageRequest;
+import com.evs.model.EntityInstanceWithVariables;
+import com.evs.model.Page;
+import com.evs.model.Variable;
+import com.evs.query.VariableQuery;
 import com.evs.repository.EntityInstanceRepository;
 
 import java.util.List;
@@ -23,6 +28,13 @@ public class EntityInstanceService {
         return entityInstanceRepository.save(instance);
     }
 
+    /**
+     * Creates an instance and its initial variables atomically in a single statement.
+     */
+    public EntityInstanceWithVariables createInstanceWithVariables(EntityInstance instance, List<Variable> variables) {
+        return entityInstanceRepository.saveWithVariables(instance, variables);
+    }
+
     public EntityInstance getInstance(UUID id) {
         return entityInstanceRepository.findById(id)
                 .orElseThrow(() -> new EVSException("Entity instance not found: " + id));
@@ -44,4 +56,20 @@ public class EntityInstanceService {
     public List<EntityInstance> findByEntityId(UUID entityId) {
         return entityInstanceRepository.findByEntityId(entityId);
     }
+
+    /**
+     * Pages through an entity's instances, newest first. Pass {@link Page#nextPageToken()} of
+     * the previous page into the next request.
+     */
+    public Page<EntityInstance> findPage(EntityInstancePageRequest request) {
+        return entityInstanceRepository.findPage(request);
+    }
+
+    /**
+     * Finds instances by variable values, evaluated in the database. Page through results with
+     * {@link Page#nextPageToken()} like {@link #findPage(EntityInstancePageRequest)}.
+     */
+    public Page<EntityInstance> query(VariableQuery query) {
+        return entityInstanceRepository.findByQuery(query);
+    }
 }
@@ -10,42 +10,108 @@ import java.util.UUID;
 
 /**
  * Business logic for Entity management.
+ * <p>
+ * When an {@link EntityCatalogCache} is supplied, id and name lookups are served read-through
+ * from the cache.
  */
 public class EntityService {
 
     private final EntityRepository entityRepository;
     private final PartitionManager partitionManager;
+    private final EntityCatalogCache catalogCache;
+    private final VariableIndexManager indexManager;
 
     public EntityService(EntityRepository entityRepository, PartitionManager partitionManager) {
+        this(entityRepository, partitionManager, null);
+    }
+
+    public EntityService(EntityRepository entityRepository, PartitionManager partitionManager,
+                         EntityCatalogCache catalogCache) {
+        this(entityRepository, partitionManager, catalogCache, null);
+    }
+
+    /**
+     * @param indexManager optional; when set, variables declared indexed in a new entity's
+     *                     schema get their value indexes built in the background once its
+     *                     partitions exist
+     */
+    public EntityService(EntityRepository entityRepository, PartitionManager partitionManager,
+                         EntityCatalogCache catalogCache, VariableIndexManager indexManager) {
         this.entityRepository = entityRepository;
         this.partitionManager = partitionManager;
+        this.catalogCache = catalogCache;
+        this.indexManager = indexManager;
     }
 
     public Entity createEntity(Entity entity) {
         Entity saved = entityRepository.save(entity);
         partitionManager.createEntityPartition(saved.id(), saved.name());
+        if (indexManager != null) {
+            indexManager.ensureIndexesAsync(saved);
+        }
+        if (catalogCache != null) {
+            catalogCache.invalidate(saved);
+            catalogCache.put(saved);
+        }
         return saved;
     }
 
     public Entity getEntity(UUID id) {
-        return entityRepository.findById(id)
+        return findById(id)
                 .orElseThrow(() -> new EVSException("Entity not found: " + id));
     }
 
     public Entity getEntityByName(String name) {
-        return entityRepository.findByName(name)
+        return findByName(name)
                 .orElseThrow(() -> new EVSException("Entity not found: " + name));
     }
 
     public Optional<Entity> findById(UUID id) {
-        return entityRepository.findById(id);
+        if (catalogCache == null) {
+            return entityRepository.findById(id);
+        }
+        Optional<Entity> cached = catalogCache.getById(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Entity> loaded = entityRepository.findById(id);
+        loaded.ifPresent(catalogCache::put);
+        return loaded;
     }
 
     public Optional<Entity> findByName(String name) {
-        return entityRepository.findByName(name);
+        if (catalogCache == null) {
+            return entityRepository.findByName(name);
+        }
+        Optional<Entity> cached = catalogCache.getByName(name);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Entity> loaded = entityRepository.findByName(name);
+        loaded.ifPresent(catalogCache::put);
+        return loaded;
     }
 
     public List<Entity> findAll() {
         return entityRepository.findAll();
     }
+
+    /**
+     * Loads the whole entity catalog into the cache, replacing what was cached before.
+     * Also usable as a manual refresh. Does nothing when caching is disabled.
+     */
+    public void preloadCatalog() {
+        if (catalogCache != null) {
+            catalogCache.replaceAll(entityRepository.findAll());
+        }
+    }
+
+    /**
+     * Drops all cached entity definitions.
+     */
+    public void invalidateCatalog() {
+        if (catalogCache != null) {
+            catalogCache.invalidateAll();
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.evs.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.UUID;
+
+/**
+ * Bounded cache of entity instance id to entity id, used to prune variable reads to the
+ * entity's partition. The mapping never changes, so entries only leave on size eviction.
+ * <p>
+ * One cache is shared by all {@link VariableService}s of a factory, so an instance is looked
+ * up at most once however many services read it.
+ */
+public class InstanceEntityCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final Cache<UUID, UUID> cache;
+
+    public InstanceEntityCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public InstanceEntityCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * @return the cached entity id, or {@code null} if the instance has not been seen yet
+     */
+    public UUID get(UUID instanceId) {
+        return cache.getIfPresent(instanceId);
+    }
+
+    public void put(UUID instanceId, UUID entityId) {
+        cache.put(instanceId, entityId);
+    }
+}
@@ -0,0 +1,41 @@
+package com.evs.service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one {@link PartitionManager#maintainPartitions(int)} run.
+ *
+ * @param lockAcquired      false when another node held the maintenance lock and nothing was done
+ * @param entitiesChecked   number of entities whose partitions were verified
+ * @param createdPartitions monthly partitions created by this run
+ * @param failures          entity name to the error that prevented creating its partitions
+ * @param duration          wall-clock time of the run
+ */
+public record PartitionMaintenanceReport(
+        boolean lockAcquired,
+        int entitiesChecked,
+        List<String> createdPartitions,
+        Map<String, SQLException> failures,
+        Duration duration) {
+
+    public PartitionMaintenanceReport {
+        createdPartitions = List.copyOf(createdPartitions);
+        failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * Names of entities whose partitions could not be created, in the order they were checked.
+     */
+    public List<String> failedEntities() {
+        return List.copyOf(failures.keySet());
+    }
+
+    static PartitionMaintenanceReport skipped(Duration duration) {
+        return new PartitionMaintenanceReport(false, 0, List.of(), Map.of(), duration);
+    }
+}
@@ -0,0 +1,98 @@
+package com.evs.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically runs {@link PartitionManager#maintainPartitions(int)} on a background thread so
+ * future monthly partitions exist before data for them arrives. When a
+ * {@link VariableIndexManager} is given, declared variable indexes are then built on any new
+ * partitions.
+ */
+public class PartitionMaintenanceScheduler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceScheduler.class);
+
+    private final PartitionManager partitionManager;
+    private final int monthsAhead;
+    private final long intervalMillis;
+    private final VariableIndexManager indexManager;
+    private final ScheduledExecutorService executor;
+
+    private volatile PartitionMaintenanceReport lastReport;
+
+    public PartitionMaintenanceScheduler(PartitionManager partitionManager, int monthsAhead, long intervalMillis) {
+        this(partitionManager, null, monthsAhead, intervalMillis);
+    }
+
+    public PartitionMaintenanceScheduler(PartitionManager partitionManager, VariableIndexManager indexManager,
+                                         int monthsAhead, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive");
+        }
+        this.partitionManager = partitionManager;
+        this.indexManager = indexManager;
+        this.monthsAhead = monthsAhead;
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "evs-partition-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules maintenance immediately and then every interval.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::runSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs maintenance on the calling thread.
+     */
+    public PartitionMaintenanceReport runNow() {
+        PartitionMaintenanceReport report = partitionManager.maintainPartitions(monthsAhead);
+        lastReport = report;
+
+        if (!report.lockAcquired()) {
+            log.debug("Partition maintenance skipped, another node holds the lock");
+        } else if (!report.createdPartitions().isEmpty() || !report.failedEntities().isEmpty()) {
+            log.info("Partition maintenance checked {} entities in {} ms, created {}, failed {}",
+                    report.entitiesChecked(), report.duration().toMillis(),
+                    report.createdPartitions(), report.failedEntities());
+        } else {
+            log.debug("Partition maintenance checked {} entities in {} ms, nothing to create",
+                    report.entitiesChecked(), report.duration().toMillis());
+        }
+
+        if (indexManager != null && report.lockAcquired()) {
+            indexManager.ensureAllIndexes();
+        }
+        return report;
+    }
+
+    /**
+     * @return the report of the most recent run, or {@code null} if none has completed yet
+     */
+    public PartitionMaintenanceReport lastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            runNow();
+        } catch (RuntimeException e) {
+            log.warn("Partition maintenance failed", e);
+        }
+    }
+}
@@ -1,36 +1,64 @@
 package com.evs.service;
 
+import com.evs.config.EVSConfig;
 import com.evs.exception.EVSException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Manages PostgreSQL partitions for the variables table.
+ * <p>
+ * Maintenance runs are serialized through a PostgreSQL advisory lock so that only one node
+ * maintains partitions at a time. The DDL for a single entity is serialized through a second,
+ * per-entity advisory lock, so creating a new entity only waits for work on that same entity
+ * and never for a whole maintenance run.
  */
 public class PartitionManager {
 
+    /** Advisory lock key guarding partition DDL ("EVS_PART" as ASCII). */
+    static final long PARTITION_LOCK_KEY = 0x4556535F50415254L;
+
+    /**
+     * First key of the two-key advisory locks guarding one entity's partition DDL ("EVSE" as
+     * ASCII). Two-key locks never conflict with the single-key {@link #PARTITION_LOCK_KEY}.
+     */
+    static final int ENTITY_LOCK_NAMESPACE = 0x45565345;
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionManager.class);
+
     private final DataSource dataSource;
+    private final int monthsAhead;
 
     public PartitionManager(DataSource dataSource) {
+        this(dataSource, EVSConfig.DEFAULT_PARTITION_MONTHS_AHEAD);
+    }
+
+    /**
+     * @param monthsAhead number of future monthly partitions created next to the current month
+     */
+    public PartitionManager(DataSource dataSource, int monthsAhead) {
+        if (monthsAhead < 0) {
+            throw new IllegalArgumentException("monthsAhead must not be negative");
+        }
         this.dataSource = dataSource;
+        this.monthsAhead = monthsAhead;
     }
 
     public void createEntityPartition(UUID entityId, String entityName) {
-        String sql = "SELECT create_entity_partition(?, ?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setObject(1, entityId);
-            ps.setString(2, entityName);
-            ps.executeQuery();
-
-            autoCreatePartitions(entityId, entityName);
-
+        try (Connection conn = dataSource.getConnection()) {
+            ensureMonthlyPartitions(conn, entityId, entityName, monthsAhead);
         } catch (SQLException e) {
             throw new EVSException("Failed to create partition for entity: " + entityName, e);
         }
@@ -50,4 +78,112 @@ public class PartitionManager {
             throw new EVSException("Failed to auto-create partitions for entity: " + entityName, e);
         }
     }
+
+    /**
+     * Ensures every entity has monthly partitions from the current month through
+     * {@code monthsAhead} months ahead. Returns immediately with a skipped report if
+     * another node is already running maintenance. A failing entity is logged and recorded in
+     * the report with its cause; the remaining entities are still maintained.
+     */
+    public PartitionMaintenanceReport maintainPartitions(int monthsAhead) {
+        long start = System.nanoTime();
+
+        try (Connection conn = dataSource.getConnection()) {
+            if (!tryLock(conn)) {
+                return PartitionMaintenanceReport.skipped(Duration.ofNanos(System.nanoTime() - start));
+            }
+            try {
+                List<String> created = new ArrayList<>();
+                Map<String, SQLException> failed = new LinkedHashMap<>();
+                int checked = 0;
+
+                for (EntityRef entity : findEntities(conn)) {
+                    checked++;
+                    try {
+                        created.addAll(ensureMonthlyPartitions(conn, entity.id(), entity.name(), monthsAhead));
+                    } catch (SQLException e) {
+                        log.warn("Failed to maintain partitions of entity {}", entity.name(), e);
+                        failed.put(entity.name(), e);
+                    }
+                }
+
+                return new PartitionMaintenanceReport(true, checked, created, failed,
+                        Duration.ofNanos(System.nanoTime() - start));
+            } finally {
+                unlock(conn);
+            }
+        } catch (SQLException e) {
+            throw new EVSException("Failed to maintain partitions", e);
+        }
+    }
+
+    private List<String> ensureMonthlyPartitions(Connection conn, UUID entityId, String entityName, int months)
+            throws SQLException {
+        String sql = "SELECT ensure_monthly_partitions(?, ?, ?)";
+
+        List<String> created = new ArrayList<>();
+        lockEntity(conn, entityId);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, entityId);
+            ps.setString(2, entityName);
+            ps.setInt(3, months);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    created.add(rs.getString(1));
+                }
+            }
+        } finally {
+            unlockEntity(conn, entityId);
+        }
+        return created;
+    }
+
+    private List<EntityRef> findEntities(Connection conn) throws SQLException {
+        String sql = "SELECT id, name FROM entities ORDER BY name";
+
+        List<EntityRef> result = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(new EntityRef(rs.getObject("id", UUID.class), rs.getString("name")));
+            }
+        }
+        return result;
+    }
+
+    private static boolean tryLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, PARTITION_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, PARTITION_LOCK_KEY);
+            ps.executeQuery().close();
+        }
+    }
+
+    private static void lockEntity(Connection conn, UUID entityId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_lock(?, ?)")) {
+            ps.setInt(1, ENTITY_LOCK_NAMESPACE);
+            ps.setInt(2, entityId.hashCode());
+            ps.executeQuery().close();
+        }
+    }
+
+    private static void unlockEntity(Connection conn, UUID entityId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?, ?)")) {
+            ps.setInt(1, ENTITY_LOCK_NAMESPACE);
+            ps.setInt(2, entityId.hashCode());
+            ps.executeQuery().close();
+        }
+    }
+
+    private record EntityRef(UUID id, String name) {
+    }
 }
@@ -0,0 +1,310 @@
+package com.evs.service;
+
+import com.evs.exception.EVSException;
+import com.evs.model.Entity;
+import com.evs.model.VariableType;
+import com.evs.repository.EntityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates partial B-tree indexes for variables declared as indexed in an entity's
+ * {@code schema_definition}:
+ * <pre>{@code
+ * {"variables": {"amount": {"type": "INTEGER", "indexed": true}}}
+ * }</pre>
+ * Each declared variable gets one index per monthly partition of its entity, on
+ * {@code (value_<type>, entity_instance_id) WHERE variable_name = '<name>'}, built with
+ * {@code CREATE INDEX CONCURRENTLY} so writes are not blocked. Index names are derived from a
+ * hash of partition, variable and column and recorded in {@code variable_index_metadata}.
+ * <p>
+ * Builds are serialized across nodes by an advisory lock. {@link #ensureAllIndexes()} skips
+ * the run when another node holds it and leaves the work to the next maintenance cycle.
+ * {@link #ensureIndexesAsync(Entity)} builds on a background thread, so callers never wait for
+ * the lock or for a concurrent build.
+ */
+public class VariableIndexManager implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VariableIndexManager.class);
+
+    /** Advisory lock key guarding index DDL ("EVS_INDX" as ASCII). */
+    static final long INDEX_LOCK_KEY = 0x4556535F494E4458L;
+
+    static final String INDEX_PREFIX = "evs_vidx_";
+
+    private final DataSource dataSource;
+    private final EntityRepository entityRepository;
+    private final ExecutorService executor;
+
+    public VariableIndexManager(DataSource dataSource, EntityRepository entityRepository) {
+        this.dataSource = dataSource;
+        this.entityRepository = entityRepository;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "evs-variable-index");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Builds the missing indexes of one entity, waiting for the lock if another node is busy.
+     *
+     * @return names of the indexes created
+     */
+    public List<String> ensureIndexes(Entity entity) {
+        return ensureIndexes(List.of(entity), true);
+    }
+
+    /**
+     * Builds the missing indexes of one entity in the background. A failure is logged and the
+     * future completes exceptionally; indexes still missing are built by the next
+     * {@link #ensureAllIndexes()}.
+     *
+     * @return names of the indexes created
+     */
+    public CompletableFuture<List<String>> ensureIndexesAsync(Entity entity) {
+        if (indexedVariables(entity).isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return CompletableFuture.supplyAsync(() -> ensureIndexes(entity), executor)
+                .whenComplete((created, e) -> {
+                    if (e != null) {
+                        log.warn("Failed to build variable indexes of entity {}", entity.name(), e);
+                    }
+                });
+    }
+
+    /**
+     * Builds the missing indexes of every entity, e.g. for partitions created since the last run.
+     *
+     * @return names of the indexes created
+     */
+    public List<String> ensureAllIndexes() {
+        return ensureIndexes(entityRepository.findAll(), false);
+    }
+
+    private List<String> ensureIndexes(List<Entity> entities, boolean waitForLock) {
+        List<Entity> declaring = entities.stream()
+                .filter(e -> !indexedVariables(e).isEmpty())
+                .toList();
+        if (declaring.isEmpty()) {
+            return List.of();
+        }
+
+        // CREATE INDEX CONCURRENTLY must run outside a transaction block
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            if (waitForLock) {
+                lock(conn);
+            } else if (!tryLock(conn)) {
+                log.debug("Variable index build skipped, another node holds the lock");
+                return List.of();
+            }
+            try {
+                Map<String, Boolean> existing = findExistingIndexes(conn);
+                List<String> created = new ArrayList<>();
+                for (Entity entity : declaring) {
+                    Map<String, VariableType> variables = indexedVariables(entity);
+                    for (String partition : findMonthlyPartitions(conn, entity.id())) {
+                        for (Map.Entry<String, VariableType> variable : variables.entrySet()) {
+                            String index = buildIndex(conn, existing, entity.id(), partition,
+                                    variable.getKey(), variable.getValue());
+                            if (index != null) {
+                                created.add(index);
+                            }
+                        }
+                    }
+                }
+                if (!created.isEmpty()) {
+                    log.info("Created {} variable indexes: {}", created.size(), created);
+                }
+                return created;
+            } finally {
+                unlock(conn);
+            }
+        } catch (SQLException e) {
+            throw new EVSException("Failed to build variable indexes", e);
+        }
+    }
+
+    /**
+     * Stops the background builder. A build in progress is interrupted; an index it leaves
+     * invalid is rebuilt by the next run.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return {@code variable name -> type} of the variables declared {@code "indexed": true};
+     *         JSON (already GIN-indexed) and BINARY variables are ignored
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, VariableType> indexedVariables(Entity entity) {
+        Map<String, VariableType> result = new LinkedHashMap<>();
+        if (entity.schemaDefinition() == null
+                || !(entity.schemaDefinition().get("variables") instanceof Map<?, ?> variables)) {
+            return result;
+        }
+        for (Map.Entry<?, ?> entry : variables.entrySet()) {
+            if (!(entry.getValue() instanceof Map<?, ?> definition)
+                    || !Boolean.TRUE.equals(definition.get("indexed"))
+                    || !(definition.get("type") instanceof String typeName)) {
+                continue;
+            }
+            VariableType type;
+            try {
+                type = VariableType.fromName(typeName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("Entity {} declares unknown type {} for indexed variable {}",
+                        entity.name(), typeName, entry.getKey());
+                continue;
+            }
+            if (type != VariableType.JSON && type != VariableType.BINARY) {
+                result.put(String.valueOf(entry.getKey()), type);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deterministic index name, well within PostgreSQL's 63-character identifier limit.
+     */
+    static String indexName(String partition, String variableName, VariableType type) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((partition + '\0' + variableName + '\0' + type.getColumnName())
+                    .getBytes(StandardCharsets.UTF_8));
+            return INDEX_PREFIX + HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String buildIndex(Connection conn, Map<String, Boolean> existing, UUID entityId, String partition,
+                              String variableName, VariableType type) throws SQLException {
+        String index = indexName(partition, variableName, type);
+        Boolean valid = existing.get(index);
+        if (Boolean.TRUE.equals(valid)) {
+            return null;
+        }
+
+        try (Statement st = conn.createStatement()) {
+            if (valid != null) {
+                // left INVALID by an interrupted concurrent build
+                st.execute("DROP INDEX CONCURRENTLY IF EXISTS " + quoteIdentifier(index));
+            }
+            st.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + quoteIdentifier(index)
+                    + " ON " + quoteIdentifier(partition)
+                    + " (" + type.getColumnName() + ", entity_instance_id)"
+                    + " WHERE variable_name = " + quoteLiteral(variableName));
+        }
+
+        String sql = """
+            INSERT INTO variable_index_metadata
+                (index_name, entity_id, partition_name, variable_name, variable_type, column_name)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (index_name) DO NOTHING
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, index);
+            ps.setObject(2, entityId);
+            ps.setString(3, partition);
+            ps.setString(4, variableName);
+            ps.setString(5, type.name());
+            ps.setString(6, type.getColumnName());
+            ps.executeUpdate();
+        }
+        existing.put(index, true);
+        return index;
+    }
+
+    private static Map<String, Boolean> findExistingIndexes(Connection conn) throws SQLException {
+        String sql = """
+            SELECT c.relname, i.indisvalid
+            FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE c.relname LIKE 'evs\\_vidx\\_%'
+            """;
+
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.put(rs.getString(1), rs.getBoolean(2));
+            }
+        }
+        return result;
+    }
+
+    private static List<String> findMonthlyPartitions(Connection conn, UUID entityId) throws SQLException {
+        String sql = """
+            SELECT partition_name FROM partition_metadata
+            WHERE entity_id = ? AND partition_type = 'MONTH_LEVEL' AND is_active
+              AND to_regclass(quote_ident(partition_name)) IS NOT NULL
+            ORDER BY partition_name
+            """;
+
+        List<String> result = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, entityId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString(1));
+                }
+            }
+        }
+        return result;
+    }
+
+    static String quoteIdentifier(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    static String quoteLiteral(String literal) {
+        return '\'' + literal.replace("'", "''") + '\'';
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            ps.setLong(1, INDEX_LOCK_KEY);
+            ps.executeQuery().close();
+        }
+    }
+
+    private static boolean tryLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, INDEX_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, INDEX_LOCK_KEY);
+            ps.executeQuery().close();
+        }
+    }
+}
@@ -1,60 +1,392 @@
 package com.evs.service;
 
+import com.evs.config.BatchInsertMode;
+import com.evs.model.Downsampling;
+import com.evs.model.HistoryPoint;
+import com.evs.model.TimeRange;
 import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
 import com.evs.model.VariableType;
+import com.evs.query.AggregationRow;
+import com.evs.query.VariableAggregation;
 import com.evs.repository.VariableRepository;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Business logic for Variable management.
  */
 public class VariableService {
 
+    public static final int DEFAULT_HISTORY_LIMIT = 1000;
+
     private final VariableRepository variableRepository;
+    private final BatchInsertMode batchInsertMode;
+    private final VariableSnapshotCache snapshotCache;
+    private final InstanceEntityCache instanceEntityIds;
 
     public VariableService(VariableRepository variableRepository) {
+        this(variableRepository, BatchInsertMode.INSERT);
+    }
+
+    public VariableService(VariableRepository variableRepository, BatchInsertMode batchInsertMode) {
+        this(variableRepository, batchInsertMode, null);
+    }
+
+    /**
+     * @param snapshotCache optional cache for {@link #getVariablesAsMap(UUID)}; {@code null} disables caching
+     */
+    public VariableService(VariableRepository variableRepository, BatchInsertMode batchInsertMode,
+                           VariableSnapshotCache snapshotCache) {
+        this(variableRepository, batchInsertMode, snapshotCache, new InstanceEntityCache());
+    }
+
+    /**
+     * @param instanceEntityIds instance to entity id cache, shared with the other services of a factory
+     */
+    public VariableService(VariableRepository variableRepository, BatchInsertMode batchInsertMode,
+                           VariableSnapshotCache snapshotCache, InstanceEntityCache instanceEntityIds) {
         this.variableRepository = variableRepository;
+        this.batchInsertMode = batchInsertMode;
+        this.snapshotCache = snapshotCache;
+        this.instanceEntityIds = instanceEntityIds;
     }
 
     public Variable createVariable(Variable variable) {
-        return variableRepository.save(variable);
+        Variable saved = variableRepository.save(variable);
+        invalidateSnapshot(variable.entityInstanceId());
+        return saved;
     }
 
     public List<Variable> createVariablesBatch(List<Variable> variables) {
-        return variableRepository.saveBatch(variables);
+        List<Variable> saved = variableRepository.saveBatch(variables);
+        invalidateSnapshots(variables);
+        return saved;
+    }
+
+    /**
+     * Sets the current value of a variable, updating it in place instead of appending a row.
+     * Entities whose {@code schema_definition} has {@code "keepHistory": true} also get an
+     * appended history row per call.
+     *
+     * @return the current row
+     */
+    public Variable setVariable(Variable variable) {
+        Variable saved = variableRepository.upsert(variable);
+        invalidateSnapshot(variable.entityInstanceId());
+        return saved;
+    }
+
+    /**
+     * Batch variant of {@link #setVariable(Variable)}, written in one transaction.
+     *
+     * @return number of variables set
+     */
+    public int setVariablesBatch(List<Variable> variables) {
+        int written = variableRepository.upsertBatch(variables);
+        invalidateSnapshots(variables);
+        return written;
+    }
+
+    /**
+     * Bulk-writes variables using the configured {@link BatchInsertMode}. Use this instead of
+     * {@link #createVariablesBatch(List)} when generated ids are not needed.
+     *
+     * @return number of rows written
+     */
+    public long ingestVariables(List<Variable> variables) {
+        long written = switch (batchInsertMode) {
+            case COPY -> variableRepository.copyBatch(variables);
+            case INSERT -> variableRepository.saveBatch(variables).size();
+        };
+        invalidateSnapshots(variables);
+        return written;
+    }
+
+    /**
+     * Bulk-writes a columnar batch using the configured {@link BatchInsertMode}. Unlike
+     * {@link #ingestVariables(List)} no {@link Variable} is created per value.
+     *
+     * @return number of rows written
+     */
+    public long ingestVariables(VariableBatch batch) {
+        long written = switch (batchInsertMode) {
+            case COPY -> variableRepository.copyBatch(batch);
+            case INSERT -> variableRepository.insertBatch(batch);
+        };
+        if (snapshotCache != null && !batch.isEmpty()) {
+            Set<UUID> instanceIds = new HashSet<>();
+            for (int row = 0; row < batch.size(); row++) {
+                instanceIds.add(batch.instanceId(row));
+            }
+            snapshotCache.invalidateAll(instanceIds);
+        }
+        return written;
     }
 
     public List<Variable> getVariablesByInstance(UUID instanceId) {
-        return variableRepository.findByEntityInstanceId(instanceId);
+        return getVariablesByInstance(instanceId, TimeRange.all());
+    }
+
+    /**
+     * Reads an instance's variables pruned to its entity partition and the given window.
+     * The instance's entity id is resolved once and cached. Current values set with
+     * {@link #setVariable} are returned whatever the window.
+     */
+    public List<Variable> getVariablesByInstance(UUID instanceId, TimeRange range) {
+        return resolveEntityId(instanceId)
+                .map(entityId -> variableRepository.findByEntityInstanceId(entityId, instanceId, range))
+                .orElse(List.of());
+    }
+
+    public List<Variable> getVariablesByInstance(UUID entityId, UUID instanceId, TimeRange range) {
+        return variableRepository.findByEntityInstanceId(entityId, instanceId, range);
     }
 
     public Optional<Variable> getVariable(UUID instanceId, String variableName) {
-        return variableRepository.findByInstanceIdAndName(instanceId, variableName);
+        return getVariable(instanceId, variableName, TimeRange.all());
+    }
+
+    public Optional<Variable> getVariable(UUID instanceId, String variableName, TimeRange range) {
+        return resolveEntityId(instanceId)
+                .flatMap(entityId -> variableRepository.findByInstanceIdAndName(entityId, instanceId, variableName, range));
+    }
+
+    public Optional<Variable> getVariable(UUID entityId, UUID instanceId, String variableName, TimeRange range) {
+        return variableRepository.findByInstanceIdAndName(entityId, instanceId, variableName, range);
     }
 
+    /**
+     * Returns the rows of one variable of an instance registered in {@code [from, to)}, oldest
+     * first, capped at {@value #DEFAULT_HISTORY_LIMIT} rows. Either bound may be {@code null}.
+     * History consists of appended rows: values written with {@link #createVariable} and, for
+     * {@code keepHistory} entities, those set with {@link #setVariable}.
+     */
+    public List<Variable> getHistory(UUID instanceId, String variableName, Instant from, Instant to) {
+        return getHistory(instanceId, variableName, TimeRange.between(from, to), false, DEFAULT_HISTORY_LIMIT);
+    }
+
+    /**
+     * @param newestFirst {@code true} to return the latest {@code limit} rows, newest first
+     */
+    public List<Variable> getHistory(UUID instanceId, String variableName, TimeRange range,
+                                     boolean newestFirst, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return resolveEntityId(instanceId)
+                .map(entityId -> variableRepository.findHistory(entityId, instanceId, variableName, range, newestFirst, limit))
+                .orElse(List.of());
+    }
+
+    /**
+     * Returns one point per {@code bucket} of a numeric variable's history, reduced in the
+     * database with {@code downsampling}.
+     */
+    public List<HistoryPoint> getDownsampledHistory(UUID instanceId, String variableName, TimeRange range,
+                                                    Duration bucket, Downsampling downsampling) {
+        return resolveEntityId(instanceId)
+                .map(entityId -> variableRepository.findDownsampledHistory(
+                        entityId, instanceId, variableName, range, bucket, downsampling))
+                .orElse(List.of());
+    }
+
+    /**
+     * Returns {@code variable_name -> value} for an instance, served from the snapshot cache
+     * when one is configured.
+     */
     public Map<String, Object> getVariablesAsMap(UUID instanceId) {
+        if (snapshotCache == null) {
+            return loadVariablesAsMap(instanceId);
+        }
+        return new HashMap<>(snapshotCache.get(instanceId, this::loadVariablesAsMap));
+    }
+
+    /**
+     * Returns {@code variable_name -> value} for many instances using one query (per chunk of
+     * ids) instead of one query per instance. Every requested id is present in the result;
+     * instances without variables map to an empty map.
+     */
+    public Map<UUID, Map<String, Object>> getVariablesForInstances(Collection<UUID> instanceIds) {
+        return getVariablesForInstances(instanceIds, null);
+    }
+
+    /**
+     * Like {@link #getVariablesForInstances(Collection)}, restricted to {@code variableNames}.
+     * Name-filtered reads bypass the snapshot cache.
+     */
+    public Map<UUID, Map<String, Object>> getVariablesForInstances(Collection<UUID> instanceIds,
+                                                                   Collection<String> variableNames) {
+        Set<UUID> distinctIds = new LinkedHashSet<>(instanceIds);
+        boolean filterNames = variableNames != null && !variableNames.isEmpty();
+
+        Map<UUID, Map<String, Object>> loaded;
+        if (snapshotCache != null && !filterNames) {
+            loaded = snapshotCache.getAll(distinctIds, ids -> loadVariablesForInstances(ids, null));
+        } else {
+            loaded = loadVariablesForInstances(distinctIds, variableNames);
+        }
+
+        Map<UUID, Map<String, Object>> result = new LinkedHashMap<>();
+        for (UUID instanceId : distinctIds) {
+            result.put(instanceId, new HashMap<>(loaded.getOrDefault(instanceId, Map.of())));
+        }
+        return result;
+    }
+
+    /**
+     * Finds an entity's JSON variables named {@code variableName} whose value contains
+     * {@code document} (JSONB {@code @>}), filtered in the database.
+     */
+    public List<Variable> findByJsonContains(UUID entityId, String variableName, Object document) {
+        return findByJsonContains(entityId, variableName, document, TimeRange.all());
+    }
+
+    public List<Variable> findByJsonContains(UUID entityId, String variableName, Object document, TimeRange range) {
+        return variableRepository.findByJsonContains(entityId, variableName, document, range);
+    }
+
+    /**
+     * Finds an entity's JSON variables named {@code variableName} matched by the SQL/JSON path
+     * {@code jsonPath}, e.g. {@code $.tags[*] ? (@ == "vip")}.
+     */
+    public List<Variable> findByJsonPath(UUID entityId, String variableName, String jsonPath) {
+        return findByJsonPath(entityId, variableName, jsonPath, TimeRange.all());
+    }
+
+    public List<Variable> findByJsonPath(UUID entityId, String variableName, String jsonPath, TimeRange range) {
+        return variableRepository.findByJsonPath(entityId, variableName, jsonPath, range);
+    }
+
+    /**
+     * Finds an entity's JSON variables named {@code variableName} that have the top-level {@code key}.
+     */
+    public List<Variable> findByJsonKeyExists(UUID entityId, String variableName, String key) {
+        return findByJsonKeyExists(entityId, variableName, key, TimeRange.all());
+    }
+
+    public List<Variable> findByJsonKeyExists(UUID entityId, String variableName, String key, TimeRange range) {
+        return variableRepository.findByJsonKeyExists(entityId, variableName, key, range);
+    }
+
+    /**
+     * Aggregates numeric variables in the database; see {@link VariableAggregation} for the
+     * supported functions and groupings.
+     */
+    public List<AggregationRow> aggregate(VariableAggregation aggregation) {
+        return variableRepository.aggregate(aggregation);
+    }
+
+    /**
+     * Streams every variable of an entity within {@code range} with flat memory use.
+     * The returned stream must be closed to release its connection.
+     */
+    public Stream<Variable> streamVariablesByEntity(UUID entityId, TimeRange range) {
+        return variableRepository.streamByEntity(entityId, range);
+    }
+
+    /**
+     * @return number of variables passed to {@code consumer}
+     */
+    public long forEachVariableByEntity(UUID entityId, TimeRange range, Consumer<Variable> consumer) {
+        return variableRepository.forEachByEntity(entityId, range, consumer);
+    }
+
+    /**
+     * @return snapshot cache counters, or {@code null} when caching is disabled
+     */
+    public VariableSnapshotCacheStats getSnapshotCacheStats() {
+        return snapshotCache != null ? snapshotCache.stats() : null;
+    }
+
+    private Map<String, Object> loadVariablesAsMap(UUID instanceId) {
         List<Variable> variables = getVariablesByInstance(instanceId);
         Map<String, Object> result = new HashMap<>();
 
         for (Variable var : variables) {
-            Object value = switch (var.variableType()) {
-                case STRING -> var.asString();
-                case INTEGER -> var.asLong();
-                case FLOAT -> var.asDouble();
-                case BOOLEAN -> var.asBoolean();
-                case JSON -> var.asJson();
-                case TIMESTAMP -> var.asTimestamp();
-                case UUID -> var.asUuid();
-                case BINARY -> var.asBinary();
-            };
-            result.put(var.variableName(), value);
+            result.put(var.variableName(), typedValue(var));
         }
 
         return result;
     }
+
+    private Map<UUID, Map<String, Object>> loadVariablesForInstances(Collection<UUID> instanceIds,
+                                                                    Collection<String> variableNames) {
+        List<Variable> variables = variableRepository.findByEntityInstanceIds(
+                cachedEntityIds(instanceIds), instanceIds, variableNames);
+
+        Map<UUID, Map<String, Object>> result = new HashMap<>();
+        for (Variable var : variables) {
+            result.computeIfAbsent(var.entityInstanceId(), id -> new HashMap<>())
+                    .put(var.variableName(), typedValue(var));
+        }
+        return result;
+    }
+
+    /**
+     * @return the entity ids of all instances if every one is already cached, otherwise {@code null}
+     */
+    private Set<UUID> cachedEntityIds(Collection<UUID> instanceIds) {
+        Set<UUID> entityIds = new HashSet<>();
+        for (UUID instanceId : instanceIds) {
+            UUID entityId = instanceEntityIds.get(instanceId);
+            if (entityId == null) {
+                return null;
+            }
+            entityIds.add(entityId);
+        }
+        return entityIds;
+    }
+
+    private static Object typedValue(Variable var) {
+        return switch (var.variableType()) {
+            case STRING -> var.asString();
+            case INTEGER -> var.asLong();
+            case FLOAT -> var.asDouble();
+            case BOOLEAN -> var.asBoolean();
+            case JSON -> var.asJson();
+            case TIMESTAMP -> var.asTimestamp();
+            case UUID -> var.asUuid();
+            case BINARY -> var.asBinary();
+        };
+    }
+
+    private void invalidateSnapshot(UUID instanceId) {
+        if (snapshotCache != null) {
+            snapshotCache.invalidate(instanceId);
+        }
+    }
+
+    private void invalidateSnapshots(List<Variable> variables) {
+        if (snapshotCache != null && !variables.isEmpty()) {
+            LinkedHashSet<UUID> instanceIds = new LinkedHashSet<>();
+            for (Variable v : variables) {
+                instanceIds.add(v.entityInstanceId());
+            }
+            snapshotCache.invalidateAll(instanceIds);
+        }
+    }
+
+    private Optional<UUID> resolveEntityId(UUID instanceId) {
+        UUID cached = instanceEntityIds.get(instanceId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<UUID> entityId = variableRepository.findEntityIdByInstanceId(instanceId);
+        entityId.ifPresent(id -> instanceEntityIds.put(instanceId, id));
+        return entityId;
+    }
 }
@@ -0,0 +1,142 @@
+package com.evs.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * LRU cache of per-instance variable snapshots ({@code variable_name -> value}).
+ * <p>
+ * Weight is the number of variables in a snapshot, so one huge instance cannot crowd out
+ * thousands of small ones unnoticed. Writers must call {@link #invalidate(UUID)} after
+ * changing an instance; a load that overlaps a write to the same instance is returned but not
+ * cached.
+ * <p>
+ * Each instance has a version, kept in one of {@value #VERSION_STRIPES} striped counters, that
+ * an invalidation bumps before removing the entry. A load stores its result through
+ * {@code asMap().compute} only if the version is unchanged; as the invalidation's removal goes
+ * through the same entry lock, it either sees the stored snapshot and removes it or has already
+ * bumped the version so the snapshot is never stored.
+ */
+public class VariableSnapshotCache {
+
+    static final int VERSION_STRIPES = 4096;
+
+    private final Cache<UUID, Map<String, Object>> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong clearEpoch = new AtomicLong();
+
+    public VariableSnapshotCache(long maximumWeight, long ttlMillis) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .recordStats();
+        if (ttlMillis > 0) {
+            builder.expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        this.cache = builder
+                .<UUID, Map<String, Object>>weigher((id, snapshot) -> snapshot.size() + 1)
+                .build();
+    }
+
+    /**
+     * Returns the cached snapshot of {@code instanceId}, loading it with {@code loader} on a miss.
+     * The returned map is unmodifiable.
+     */
+    public Map<String, Object> get(UUID instanceId, Function<UUID, Map<String, Object>> loader) {
+        Map<String, Object> cached = cache.getIfPresent(instanceId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = version(instanceId);
+        Map<String, Object> loaded = Collections.unmodifiableMap(new HashMap<>(loader.apply(instanceId)));
+        putIfUnchanged(instanceId, version, loaded);
+        return loaded;
+    }
+
+    /**
+     * Bulk variant of {@link #get(UUID, Function)}: cached snapshots are served directly and all
+     * misses are loaded with a single call to {@code bulkLoader}.
+     */
+    public Map<UUID, Map<String, Object>> getAll(Collection<UUID> instanceIds,
+                                                 Function<Collection<UUID>, Map<UUID, Map<String, Object>>> bulkLoader) {
+        Map<UUID, Map<String, Object>> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID instanceId : instanceIds) {
+            Map<String, Object> cached = cache.getIfPresent(instanceId);
+            if (cached != null) {
+                result.put(instanceId, cached);
+            } else {
+                missing.add(instanceId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long[] loadVersions = new long[missing.size()];
+        for (int i = 0; i < loadVersions.length; i++) {
+            loadVersions[i] = version(missing.get(i));
+        }
+        Map<UUID, Map<String, Object>> loaded = bulkLoader.apply(missing);
+        for (int i = 0; i < loadVersions.length; i++) {
+            UUID instanceId = missing.get(i);
+            Map<String, Object> snapshot = Collections.unmodifiableMap(
+                    new HashMap<>(loaded.getOrDefault(instanceId, Map.of())));
+            putIfUnchanged(instanceId, loadVersions[i], snapshot);
+            result.put(instanceId, snapshot);
+        }
+        return result;
+    }
+
+    public void invalidate(UUID instanceId) {
+        versions.incrementAndGet(stripe(instanceId));
+        cache.invalidate(instanceId);
+    }
+
+    public void invalidateAll(Collection<UUID> instanceIds) {
+        for (UUID instanceId : instanceIds) {
+            versions.incrementAndGet(stripe(instanceId));
+        }
+        cache.invalidateAll(instanceIds);
+    }
+
+    public void invalidateAll() {
+        clearEpoch.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private void putIfUnchanged(UUID instanceId, long loadVersion, Map<String, Object> snapshot) {
+        cache.asMap().compute(instanceId,
+                (id, current) -> version(id) == loadVersion ? snapshot : current);
+    }
+
+    /**
+     * Both counters only grow, so their sum changes whenever either does.
+     */
+    private long version(UUID instanceId) {
+        return clearEpoch.get() + versions.get(stripe(instanceId));
+    }
+
+    private static int stripe(UUID instanceId) {
+        return (instanceId.hashCode() & 0x7fffffff) % VERSION_STRIPES;
+    }
+
+    public VariableSnapshotCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new VariableSnapshotCacheStats(
+                stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.size());
+    }
+}
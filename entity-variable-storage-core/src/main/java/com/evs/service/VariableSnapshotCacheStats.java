@@ -0,0 +1,16 @@
+package com.evs.service;
+
+/**
+ * Point-in-time counters of a {@link VariableSnapshotCache}.
+ */
+public record VariableSnapshotCacheStats(
+        long hitCount,
+        long missCount,
+        long evictionCount,
+        long size) {
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
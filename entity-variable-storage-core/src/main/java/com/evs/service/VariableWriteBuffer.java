@@ -0,0 +1,261 @@
+package com.evs.service;
+
+import com.evs.config.WriteBufferBackpressure;
+import com.evs.exception.EVSException;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer that coalesces single-variable writes into batch inserts.
+ * <p>
+ * Variables are grouped per entity (the LIST partition) and type, and a group is flushed
+ * through {@link VariableService#createVariablesBatch(List)} once it holds
+ * {@code maxBatchSize} rows or its oldest row has waited {@code flushIntervalMillis}.
+ * At most {@code capacity} rows are buffered; beyond that producers block or are rejected
+ * according to the {@link WriteBufferBackpressure} policy. Each write returns a future that
+ * completes with the saved variable once its batch is committed.
+ * <p>
+ * Flushed groups are written by a fixed pool of {@code writers} threads, each holding one
+ * connection while its batch runs, so different groups are committed in parallel. Size it to
+ * the connection pool (as {@code EVSFactory} does); with a single writer, write-behind
+ * throughput is capped at one connection.
+ */
+public class VariableWriteBuffer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VariableWriteBuffer.class);
+
+    private final VariableService variableService;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final WriteBufferBackpressure backpressure;
+    private final Semaphore permits;
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService writers;
+    private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Object lock = new Object();
+    private final Map<GroupKey, Group> groups = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a buffer with a single writer thread.
+     */
+    public VariableWriteBuffer(VariableService variableService, int maxBatchSize, long flushIntervalMillis,
+                               int capacity, WriteBufferBackpressure backpressure) {
+        this(variableService, maxBatchSize, flushIntervalMillis, capacity, backpressure, 1);
+    }
+
+    public VariableWriteBuffer(VariableService variableService, int maxBatchSize, long flushIntervalMillis,
+                               int capacity, WriteBufferBackpressure backpressure, int writers) {
+        if (maxBatchSize <= 0 || flushIntervalMillis <= 0 || capacity < maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "maxBatchSize and flushIntervalMillis must be positive and capacity >= maxBatchSize");
+        }
+        if (writers <= 0) {
+            throw new IllegalArgumentException("writers must be positive");
+        }
+        this.variableService = variableService;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.backpressure = backpressure;
+        this.permits = new Semaphore(capacity);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "evs-variable-write-buffer");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger writerIds = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writers, r -> {
+            Thread t = new Thread(r, "evs-variable-write-buffer-writer-" + writerIds.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long tickMillis = Math.max(1, flushIntervalMillis / 2);
+        flusher.scheduleWithFixedDelay(this::flushExpired, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers a variable for writing.
+     *
+     * @return future completed with the saved variable (including its id), or exceptionally if
+     *         the batch failed, the buffer was full under {@link WriteBufferBackpressure#DROP},
+     *         or the buffer is closed
+     */
+    public CompletableFuture<Variable> add(Variable variable) {
+        if (!acquirePermit()) {
+            return CompletableFuture.failedFuture(new EVSException("Variable write buffer is full"));
+        }
+
+        Pending pending = new Pending(variable, new CompletableFuture<>());
+
+        synchronized (lock) {
+            if (closed) {
+                permits.release();
+                return CompletableFuture.failedFuture(new EVSException("Variable write buffer is closed"));
+            }
+            GroupKey key = new GroupKey(variable.entityId(), variable.variableType());
+            Group group = groups.computeIfAbsent(key, k -> new Group(System.nanoTime()));
+            group.rows.add(pending);
+            if (group.rows.size() >= maxBatchSize) {
+                groups.remove(key);
+                dispatch(group.rows);
+            }
+        }
+        return pending.future;
+    }
+
+    /**
+     * Writes everything currently buffered and waits until it, and every batch already being
+     * written, is committed.
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            groups.values().forEach(group -> dispatch(group.rows));
+            groups.clear();
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EVSException("Interrupted while flushing variable write buffer", e);
+        } catch (ExecutionException e) {
+            throw new EVSException("Failed to flush variable write buffer", e.getCause());
+        }
+    }
+
+    /**
+     * @return number of variables accepted but not yet written
+     */
+    public int pending() {
+        synchronized (lock) {
+            return groups.values().stream().mapToInt(g -> g.rows.size()).sum();
+        }
+    }
+
+    /**
+     * Flushes the buffer when the JVM shuts down.
+     */
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "evs-variable-write-buffer-shutdown"));
+    }
+
+    /**
+     * Stops accepting writes, flushes what is buffered and stops the background threads.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+            synchronized (lock) {
+                groups.values().forEach(group -> dispatch(group.rows));
+                groups.clear();
+            }
+            writers.shutdown();
+            if (!writers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Variable write buffer did not finish flushing within one minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean acquirePermit() {
+        if (backpressure == WriteBufferBackpressure.DROP) {
+            return permits.tryAcquire();
+        }
+        try {
+            permits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            groups.values().removeIf(group -> {
+                if (now - group.firstAddedNanos >= flushIntervalNanos) {
+                    dispatch(group.rows);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Hands a batch to the writer pool. Callers hold {@code lock}, so nothing is dispatched
+     * once {@link #close()} has shut the pool down.
+     */
+    private void dispatch(List<Pending> batch) {
+        CompletableFuture<Void> written = CompletableFuture.runAsync(() -> write(batch), writers);
+        inFlight.add(written);
+        written.whenComplete((r, e) -> inFlight.remove(written));
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            List<Variable> variables = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                variables.add(p.variable);
+            }
+            List<Variable> saved = variableService.createVariablesBatch(variables);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(i < saved.size() ? saved.get(i) : null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} buffered variables", batch.size(), e);
+            for (Pending p : batch) {
+                p.future.completeExceptionally(e);
+            }
+        } finally {
+            permits.release(batch.size());
+        }
+    }
+
+    private record GroupKey(UUID entityId, VariableType type) {
+    }
+
+    private static final class Group {
+        final long firstAddedNanos;
+        final List<Pending> rows = new ArrayList<>();
+
+        Group(long firstAddedNanos) {
+            this.firstAddedNanos = firstAddedNanos;
+        }
+    }
+
+    private record Pending(Variable variable, CompletableFuture<Variable> future) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.evs.session;
+
+import com.evs.config.EVSConfig;
+import com.evs.config.TransactionIsolation;
+import com.evs.exception.EVSException;
+import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
+import com.evs.repository.EntityInstanceRepository;
+import com.evs.repository.EntityRepository;
+import com.evs.repository.VariableRepository;
+import com.evs.service.PartitionManager;
+import com.evs.service.VariableSnapshotCache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Unit of work bound to one pooled connection and one transaction. Repositories obtained from
+ * a session run every statement on that connection, so any mix of calls checks out the pool
+ * once and commits once, on {@link #commit()}.
+ * <p>
+ * Commits, rollbacks and auto-commit changes issued by repository methods themselves are
+ * ignored while the session owns the transaction. A failed call leaves the PostgreSQL
+ * transaction aborted; call {@link #rollback()} before continuing. Closing the session rolls
+ * back uncommitted work and returns the connection to the pool.
+ * <p>
+ * When the factory caches variable snapshots, the instances written through
+ * {@link #variableRepository()} are invalidated in that cache once {@link #commit()} succeeds.
+ * <p>
+ * A session is not thread-safe. Obtain one with {@link com.evs.config.EVSFactory#openSession()}.
+ */
+public class EVSSession implements AutoCloseable {
+
+    private final Connection connection;
+    private final int originalIsolation;
+    private final SessionDataSource sessionDataSource;
+    private final EntityRepository entityRepository;
+    private final EntityInstanceRepository entityInstanceRepository;
+    private final VariableRepository variableRepository;
+    private final PartitionManager partitionManager;
+    private final VariableSnapshotCache snapshotCache;
+    private final Set<UUID> writtenInstances = new HashSet<>();
+    private boolean closed;
+
+    private EVSSession(Connection connection, int originalIsolation, EVSConfig config,
+                       VariableSnapshotCache snapshotCache) {
+        this.connection = connection;
+        this.originalIsolation = originalIsolation;
+        this.snapshotCache = snapshotCache;
+        this.sessionDataSource = new SessionDataSource(this);
+        this.entityRepository = new EntityRepository(sessionDataSource, config.getMetrics());
+        this.entityInstanceRepository = new EntityInstanceRepository(sessionDataSource, config);
+        this.variableRepository = snapshotCache != null
+                ? new TrackingVariableRepository(sessionDataSource, config)
+                : new VariableRepository(sessionDataSource, config);
+        this.partitionManager = new PartitionManager(sessionDataSource, config.getPartitionMonthsAhead());
+    }
+
+    /**
+     * Checks out a connection from {@code dataSource} and starts a transaction on it.
+     */
+    public static EVSSession open(DataSource dataSource, EVSConfig config, TransactionIsolation isolation) {
+        return open(dataSource, config, isolation, null);
+    }
+
+    /**
+     * @param snapshotCache optional; instances whose variables the session writes are
+     *                      invalidated in it on commit
+     */
+    public static EVSSession open(DataSource dataSource, EVSConfig config, TransactionIsolation isolation,
+                                  VariableSnapshotCache snapshotCache) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new EVSException("Failed to open session", e);
+        }
+        try {
+            int originalIsolation = connection.getTransactionIsolation();
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(isolation.getJdbcLevel());
+            return new EVSSession(connection, originalIsolation, config, snapshotCache);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new EVSException("Failed to open session", e);
+        }
+    }
+
+    public EntityRepository entityRepository() {
+        return entityRepository;
+    }
+
+    public EntityInstanceRepository entityInstanceRepository() {
+        return entityInstanceRepository;
+    }
+
+    public VariableRepository variableRepository() {
+        return variableRepository;
+    }
+
+    /**
+     * Partition DDL issued through this manager is transactional and becomes visible on commit.
+     */
+    public PartitionManager partitionManager() {
+        return partitionManager;
+    }
+
+    /**
+     * A {@link DataSource} that hands out this session's connection, for plugging custom
+     * JDBC code into the same transaction. Closing the connections it returns has no effect.
+     */
+    public DataSource getDataSource() {
+        return sessionDataSource;
+    }
+
+    /**
+     * Commits the work done so far; the session stays open and the next call starts a new transaction.
+     */
+    public void commit() {
+        try {
+            connection().commit();
+        } catch (SQLException e) {
+            throw new EVSException("Failed to commit session", e);
+        }
+        if (!writtenInstances.isEmpty()) {
+            snapshotCache.invalidateAll(writtenInstances);
+            writtenInstances.clear();
+        }
+    }
+
+    public void rollback() {
+        writtenInstances.clear();
+        try {
+            connection().rollback();
+        } catch (SQLException e) {
+            throw new EVSException("Failed to roll back session", e);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Rolls back uncommitted work, restores the connection's settings and returns it to the pool.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            connection.rollback();
+            connection.setTransactionIsolation(originalIsolation);
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new EVSException("Failed to close session", e);
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    Connection connection() throws SQLException {
+        if (closed) {
+            throw new SQLException("EVSSession is closed");
+        }
+        return connection;
+    }
+
+    /**
+     * Records the instances each variable write touches, for invalidation on {@link #commit()}.
+     */
+    private class TrackingVariableRepository extends VariableRepository {
+
+        TrackingVariableRepository(DataSource dataSource, EVSConfig config) {
+            super(dataSource, config);
+        }
+
+        @Override
+        public Variable save(Variable variable) {
+            writtenInstances.add(variable.entityInstanceId());
+            return super.save(variable);
+        }
+
+        @Override
+        public List<Variable> saveBatch(List<Variable> variables) {
+            track(variables);
+            return super.saveBatch(variables);
+        }
+
+        @Override
+        public long copyBatch(List<Variable> variables) {
+            track(variables);
+            return super.copyBatch(variables);
+        }
+
+        @Override
+        public long copyBatch(VariableBatch batch) {
+            track(batch);
+            return super.copyBatch(batch);
+        }
+
+        @Override
+        public long insertBatch(VariableBatch batch) {
+            track(batch);
+            return super.insertBatch(batch);
+        }
+
+        @Override
+        public Variable upsert(Variable variable) {
+            writtenInstances.add(variable.entityInstanceId());
+            return super.upsert(variable);
+        }
+
+        @Override
+        public int upsertBatch(List<Variable> variables) {
+            track(variables);
+            return super.upsertBatch(variables);
+        }
+
+        private void track(List<Variable> variables) {
+            for (Variable variable : variables) {
+                writtenInstances.add(variable.entityInstanceId());
+            }
+        }
+
+        private void track(VariableBatch batch) {
+            for (int row = 0; row < batch.size(); row++) {
+                writtenInstances.add(batch.instanceId(row));
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // the pool discards broken connections itself
+        }
+    }
+}
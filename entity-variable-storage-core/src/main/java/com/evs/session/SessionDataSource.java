@@ -0,0 +1,104 @@
+package com.evs.session;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Hands out proxies of the session connection whose {@code close}, {@code commit},
+ * {@code rollback()} and {@code setAutoCommit} are no-ops, so repository code written for
+ * pooled autocommit connections runs unchanged inside the session transaction.
+ */
+class SessionDataSource implements DataSource {
+
+    private final EVSSession session;
+
+    SessionDataSource(EVSSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection target = session.connection();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> invoke(target, method, args));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close", "setAutoCommit", "commit" -> {
+                return null;
+            }
+            case "rollback" -> {
+                if (args == null) {
+                    return null;
+                }
+            }
+            case "getAutoCommit" -> {
+                return false;
+            }
+            case "isClosed" -> {
+                return session.isClosed() || target.isClosed();
+            }
+            default -> {
+            }
+        }
+        if (session.isClosed()) {
+            throw new SQLException("EVSSession is closed");
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
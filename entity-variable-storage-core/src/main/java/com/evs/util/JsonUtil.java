@@ -1,5 +1,6 @@
 package com.evs.util;
 
+import com.evs.metrics.EVSMetrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,27 +16,75 @@ public final class JsonUtil {
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule());
 
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
     private JsonUtil() {
     }
 
     public static String toJson(Object obj) {
+        return toJson(obj, EVSMetrics.NOOP);
+    }
+
+    /**
+     * Serializes {@code obj}, reporting the time taken and any failure to {@code metrics}.
+     */
+    public static String toJson(Object obj, EVSMetrics metrics) {
         if (obj == null) {
             return null;
         }
+        if (obj instanceof LazyJsonMap lazy) {
+            return lazy.rawJson();
+        }
+        if (metrics == EVSMetrics.NOOP) {
+            return serialize(obj);
+        }
+        long start = System.nanoTime();
         try {
-            return MAPPER.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Failed to serialize to JSON", e);
+            String json = serialize(obj);
+            metrics.recordJson("serialize", System.nanoTime() - start, null);
+            return json;
+        } catch (RuntimeException e) {
+            metrics.recordJson("serialize", System.nanoTime() - start, e);
+            throw e;
         }
     }
 
-    @SuppressWarnings("unchecked")
     public static Map<String, Object> fromJson(String json) {
+        return fromJson(json, EVSMetrics.NOOP);
+    }
+
+    /**
+     * Deserializes {@code json}, reporting the time taken and any failure to {@code metrics}.
+     */
+    public static Map<String, Object> fromJson(String json, EVSMetrics metrics) {
         if (json == null || json.isBlank()) {
             return Map.of();
         }
+        if (metrics == EVSMetrics.NOOP) {
+            return deserialize(json);
+        }
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> value = deserialize(json);
+            metrics.recordJson("deserialize", System.nanoTime() - start, null);
+            return value;
+        } catch (RuntimeException e) {
+            metrics.recordJson("deserialize", System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private static String serialize(Object obj) {
+        try {
+            return MAPPER.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize to JSON", e);
+        }
+    }
+
+    private static Map<String, Object> deserialize(String json) {
         try {
-            return MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {});
+            return MAPPER.readValue(json, MAP_TYPE);
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("Failed to deserialize JSON", e);
         }
@@ -0,0 +1,33 @@
+package com.evs.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a page ordered by {@code (registered_at DESC, id DESC)},
+ * serialized as an opaque URL-safe string.
+ */
+public record KeysetToken(Instant registeredAt, UUID id) {
+
+    public String encode() {
+        String raw = registeredAt.getEpochSecond() + ":" + registeredAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            Instant registeredAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new KeysetToken(registeredAt, UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+}
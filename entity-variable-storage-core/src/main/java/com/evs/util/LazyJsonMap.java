@@ -0,0 +1,113 @@
+package com.evs.util;
+
+import com.evs.metrics.EVSMetrics;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable JSON object read from a {@code jsonb} column that keeps the raw text and only parses
+ * it on first access. Callers that merely write the value back out - through {@link JsonUtil#toJson}
+ * or any Jackson {@code ObjectMapper}, e.g. a REST response - get the stored text as-is and never
+ * pay for building the map. The deferred parse is reported to the {@link EVSMetrics} the map was
+ * created with.
+ */
+@JsonSerialize(using = LazyJsonMap.RawSerializer.class)
+public final class LazyJsonMap extends AbstractMap<String, Object> {
+
+    private final String json;
+    private final EVSMetrics metrics;
+    private volatile Map<String, Object> parsed;
+
+    private LazyJsonMap(String json, EVSMetrics metrics) {
+        this.json = json;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Wraps a column value. {@code null} and blank text decode to an empty map right away, the same
+     * as {@link JsonUtil#fromJson(String)}.
+     */
+    public static Map<String, Object> of(String json) {
+        return of(json, EVSMetrics.NOOP);
+    }
+
+    public static Map<String, Object> of(String json, EVSMetrics metrics) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        return new LazyJsonMap(json, metrics);
+    }
+
+    /**
+     * Immutable copy of {@code map} for record builders; lazy maps are already immutable and are
+     * returned unchanged so that copying does not force a parse.
+     */
+    public static Map<String, Object> copyOf(Map<String, Object> map) {
+        return map instanceof LazyJsonMap ? map : Map.copyOf(map);
+    }
+
+    /**
+     * The JSON text this map was created from.
+     */
+    public String rawJson() {
+        return json;
+    }
+
+    public boolean isParsed() {
+        return parsed != null;
+    }
+
+    private Map<String, Object> parsed() {
+        Map<String, Object> map = parsed;
+        if (map == null) {
+            synchronized (this) {
+                map = parsed;
+                if (map == null) {
+                    map = Collections.unmodifiableMap(JsonUtil.fromJson(json, metrics));
+                    parsed = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return parsed().entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return parsed().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return parsed().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return parsed().size();
+    }
+
+    static final class RawSerializer extends StdSerializer<LazyJsonMap> {
+
+        RawSerializer() {
+            super(LazyJsonMap.class);
+        }
+
+        @Override
+        public void serialize(LazyJsonMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
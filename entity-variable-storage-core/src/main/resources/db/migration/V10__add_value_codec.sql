@@ -0,0 +1,8 @@
+-- Codec of value_binary: 0 = stored as supplied, otherwise the id of the ValueCodec that
+-- compressed it. Values are compressed client-side once they reach the configured threshold,
+-- which shrinks the heap/TOAST tables, WAL and the bytes sent to and from the server.
+-- Only BINARY values are ever encoded. STRING values are intentionally left as plain text:
+-- value_string is compared, indexed and searched in SQL, which an opaque encoding would break,
+-- and PostgreSQL already compresses long text through TOAST.
+-- With a constant default the column is added without rewriting existing partitions.
+ALTER TABLE variables ADD COLUMN IF NOT EXISTS value_codec SMALLINT NOT NULL DEFAULT 0;
@@ -0,0 +1,30 @@
+-- Ensure the entity partition and monthly sub-partitions from the current month through
+-- p_months_ahead months ahead exist. Returns only the partitions created by this call.
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(
+    p_entity_id UUID,
+    p_entity_name VARCHAR,
+    p_months_ahead INT
+) RETURNS SETOF VARCHAR AS $$
+DECLARE
+    v_entity_partition_name VARCHAR;
+    v_monthly_partition_name VARCHAR;
+    v_month_start DATE;
+    v_year INT;
+    v_month INT;
+    i INT;
+BEGIN
+    v_entity_partition_name := create_entity_partition(p_entity_id, p_entity_name);
+
+    FOR i IN 0..p_months_ahead LOOP
+        v_month_start := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+        v_year := EXTRACT(YEAR FROM v_month_start);
+        v_month := EXTRACT(MONTH FROM v_month_start);
+        v_monthly_partition_name := v_entity_partition_name || '_y' || v_year || 'm' || lpad(v_month::TEXT, 2, '0');
+
+        IF to_regclass(quote_ident(v_monthly_partition_name)) IS NULL THEN
+            PERFORM create_monthly_partition(p_entity_id, p_entity_name, v_year, v_month);
+            RETURN NEXT v_monthly_partition_name;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
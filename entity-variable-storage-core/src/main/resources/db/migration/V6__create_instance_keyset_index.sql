@@ -0,0 +1,7 @@
+-- Keyset pagination over an entity's instances orders by (registered_at DESC, id DESC).
+-- This index serves every page with a single range scan; it supersedes the
+-- (entity_id, registered_at) index from V1.
+CREATE INDEX IF NOT EXISTS idx_entity_instances_entity_registered_id
+    ON entity_instances(entity_id, registered_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_entity_instances_entity_registered;
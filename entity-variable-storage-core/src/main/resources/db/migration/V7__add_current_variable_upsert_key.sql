@@ -0,0 +1,10 @@
+-- Latest-value ("set") semantics for variables.
+-- A current row is anchored at its instance's registered_at, so (entity_id, entity_instance_id,
+-- variable_name, registered_at) identifies it uniquely while still containing both partition
+-- keys, as PostgreSQL requires for unique indexes on partitioned tables. Appended history rows
+-- keep is_current = false and are not constrained.
+ALTER TABLE variables ADD COLUMN IF NOT EXISTS is_current BOOLEAN NOT NULL DEFAULT false;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_variables_current
+    ON variables(entity_id, entity_instance_id, variable_name, registered_at)
+    WHERE is_current;
@@ -0,0 +1,14 @@
+-- Tracks partial value indexes created for variables declared as indexed in an entity's
+-- schema_definition. Indexes are built per monthly leaf partition (CREATE INDEX CONCURRENTLY
+-- cannot target the partitioned parent), so one declared variable maps to many rows here.
+CREATE TABLE IF NOT EXISTS variable_index_metadata (
+    index_name VARCHAR(63) PRIMARY KEY,
+    entity_id UUID NOT NULL REFERENCES entities(id) ON DELETE CASCADE,
+    partition_name VARCHAR(255) NOT NULL,
+    variable_name VARCHAR(255) NOT NULL,
+    variable_type VARCHAR(50) NOT NULL,
+    column_name VARCHAR(63) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_variable_index_meta_entity ON variable_index_metadata(entity_id);
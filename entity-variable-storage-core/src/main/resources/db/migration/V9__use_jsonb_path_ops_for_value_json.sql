@@ -0,0 +1,9 @@
+-- Replace the default jsonb_ops GIN index on value_json with jsonb_path_ops.
+-- jsonb_path_ops supports the operators EVS queries with (@> containment, @? / @@ jsonpath)
+-- and is considerably smaller and faster for them; key existence is queried as a jsonpath.
+-- Only JSON variables carry a value, so the index skips the (majority of) NULL rows.
+DROP INDEX IF EXISTS idx_variables_json;
+
+CREATE INDEX IF NOT EXISTS idx_variables_json_path
+    ON variables USING GIN (value_json jsonb_path_ops)
+    WHERE value_json IS NOT NULL;
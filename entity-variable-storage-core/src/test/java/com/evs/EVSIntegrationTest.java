@@ -2,13 +2,18 @@ package com.evs;
 
 import com.evs.config.EVSConfig;
 import com.evs.config.EVSFactory;
+import com.evs.metrics.MicrometerEVSMetrics;
+import com.evs.model.Downsampling;
 import com.evs.model.Entity;
 import com.evs.model.EntityInstance;
+import com.evs.model.HistoryPoint;
+import com.evs.model.TimeRange;
 import com.evs.model.Variable;
 import com.evs.model.VariableType;
 import com.evs.service.EntityInstanceService;
 import com.evs.service.EntityService;
 import com.evs.service.VariableService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -16,6 +21,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -122,6 +128,78 @@ class EVSIntegrationTest {
         assertEquals(95.5, varsMap.get("score"));
     }
 
+    @Test
+    void shouldFetchVariablesForManyInstancesAtOnce() {
+        Entity entity = entityService.createEntity(
+                Entity.builder().name("Ticket").displayName("Ticket").build()
+        );
+        EntityInstance first = instanceService.createInstance(
+                EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()
+        );
+        EntityInstance second = instanceService.createInstance(
+                EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()
+        );
+        EntityInstance empty = instanceService.createInstance(
+                EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()
+        );
+
+        variableService.createVariablesBatch(List.of(
+                Variable.builder().entityId(entity.id()).entityInstanceId(first.id())
+                        .variableName("title").variableType(VariableType.STRING).value("First")
+                        .registeredAt(first.registeredAt()).build(),
+                Variable.builder().entityId(entity.id()).entityInstanceId(first.id())
+                        .variableName("priority").variableType(VariableType.INTEGER).value(1L)
+                        .registeredAt(first.registeredAt()).build(),
+                Variable.builder().entityId(entity.id()).entityInstanceId(second.id())
+                        .variableName("title").variableType(VariableType.STRING).value("Second")
+                        .registeredAt(second.registeredAt()).build()
+        ));
+
+        Map<UUID, Map<String, Object>> all = variableService.getVariablesForInstances(
+                List.of(first.id(), second.id(), empty.id()));
+        assertEquals(3, all.size());
+        assertEquals("First", all.get(first.id()).get("title"));
+        assertEquals(1L, all.get(first.id()).get("priority"));
+        assertEquals("Second", all.get(second.id()).get("title"));
+        assertTrue(all.get(empty.id()).isEmpty());
+
+        Map<UUID, Map<String, Object>> titles = variableService.getVariablesForInstances(
+                List.of(first.id(), second.id()), List.of("title"));
+        assertEquals(Map.of("title", "First"), titles.get(first.id()));
+    }
+
+    @Test
+    void shouldExcludeCurrentRowFromHistory() {
+        Entity entity = entityService.createEntity(Entity.builder()
+                .name("Thermostat").displayName("Thermostat")
+                .schemaDefinition(Map.of("keepHistory", true))
+                .build());
+        EntityInstance instance = instanceService.createInstance(
+                EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()
+        );
+
+        for (int i = 1; i <= 3; i++) {
+            variableService.setVariable(Variable.builder()
+                    .entityInstanceId(instance.id())
+                    .variableName("temperature")
+                    .variableType(VariableType.FLOAT)
+                    .value((double) i)
+                    .registeredAt(instance.registeredAt().plusSeconds(60L * i))
+                    .build());
+        }
+
+        List<Variable> history = variableService.getHistory(instance.id(), "temperature", null, null);
+        assertEquals(List.of(1.0, 2.0, 3.0), history.stream().map(Variable::value).toList());
+        assertTrue(history.stream().allMatch(v -> v.registeredAt().isAfter(instance.registeredAt())));
+
+        List<HistoryPoint> points = variableService.getDownsampledHistory(instance.id(), "temperature",
+                TimeRange.all(), Duration.ofMinutes(1), Downsampling.AVG);
+        assertEquals(List.of(1.0, 2.0, 3.0), points.stream().map(HistoryPoint::value).toList());
+        assertEquals(3, points.stream().mapToLong(HistoryPoint::count).sum());
+
+        assertEquals(3.0, variableService.getVariablesAsMap(instance.id()).get("temperature"));
+    }
+
     @Test
     void shouldFindEntityByName() {
         Entity entity = entityService.createEntity(
@@ -159,4 +237,34 @@ class EVSIntegrationTest {
         assertEquals("dark", settings.get("theme"));
         assertEquals(true, settings.get("notifications"));
     }
+
+    @Test
+    void shouldReadCurrentValuesInAnyWindowWithOneInstanceLookup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EVSConfig config = new EVSConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(5);
+        config.setMetrics(new MicrometerEVSMetrics(registry));
+
+        try (EVSFactory metered = new EVSFactory(config)) {
+            Entity entity = metered.entityService().createEntity(
+                    Entity.builder().name("Sensor").displayName("Sensor").build());
+            UUID instanceId = metered.entityInstanceService().createInstance(
+                    EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()).id();
+            metered.variableService().setVariable(Variable.builder().entityInstanceId(instanceId)
+                    .variableName("mode").variableType(VariableType.STRING).value("eco").build());
+
+            TimeRange later = TimeRange.since(Instant.now().plus(Duration.ofDays(1)));
+            assertEquals(List.of("eco"), metered.variableService().getVariablesByInstance(instanceId, later)
+                    .stream().map(Variable::asString).toList());
+            assertEquals("eco", metered.variableService().getVariable(instanceId, "mode", later)
+                    .orElseThrow().asString());
+
+            // every service of the factory shares the resolved entity id
+            assertEquals(1, registry.get("evs.repository.calls")
+                    .tag("operation", "findEntityIdByInstanceId").timer().count());
+        }
+    }
 }
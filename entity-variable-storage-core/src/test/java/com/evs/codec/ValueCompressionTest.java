@@ -0,0 +1,100 @@
+package com.evs.codec;
+
+import com.evs.exception.EVSException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueCompressionTest {
+
+    private static final byte[] LOG = "2024-05-01T10:00:00Z INFO request handled in 12ms\n"
+            .repeat(500).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldRoundTripDeflate() {
+        DeflateValueCodec codec = new DeflateValueCodec();
+
+        byte[] encoded = codec.encode(LOG);
+
+        assertTrue(encoded.length < LOG.length / 10, "encoded to " + encoded.length + " bytes");
+        assertArrayEquals(LOG, codec.decode(encoded));
+        assertArrayEquals(new byte[0], codec.decode(codec.encode(new byte[0])));
+    }
+
+    @Test
+    void shouldRejectCorruptDeflateValues() {
+        byte[] encoded = new DeflateValueCodec().encode(LOG);
+        encoded[3]++;
+
+        assertThrows(IllegalArgumentException.class, () -> new DeflateValueCodec().decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> new DeflateValueCodec().decode(new byte[]{0, 0}));
+    }
+
+    @Test
+    void shouldRejectSizePrefixBeyondPossibleExpansion() {
+        byte[] encoded = new DeflateValueCodec().encode(new byte[64]);
+        int stream = encoded.length - 4;
+
+        ByteBuffer.wrap(encoded).putInt(stream * DeflateValueCodec.MAX_EXPANSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> new DeflateValueCodec().decode(encoded));
+        ByteBuffer.wrap(encoded).putInt(Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> new DeflateValueCodec().decode(encoded));
+
+        byte[] zeros = new byte[1 << 20];
+        assertArrayEquals(zeros, new DeflateValueCodec(9).decode(new DeflateValueCodec(9).encode(zeros)));
+    }
+
+    @Test
+    void shouldCompressOnlyFromThreshold() {
+        ValueCompression compression = new ValueCompression(LOG.length, new DeflateValueCodec());
+
+        ValueCompression.Encoded large = compression.encode(LOG);
+        ValueCompression.Encoded small = compression.encode(new byte[LOG.length - 1]);
+
+        assertEquals(DeflateValueCodec.ID, large.codec());
+        assertArrayEquals(LOG, compression.decode(large.codec(), large.bytes()));
+        assertEquals(ValueCompression.UNCOMPRESSED, small.codec());
+        assertEquals(ValueCompression.UNCOMPRESSED, ValueCompression.NONE.encode(LOG).codec());
+    }
+
+    @Test
+    void shouldStoreIncompressibleValuesAsSupplied() {
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+
+        ValueCompression.Encoded encoded = new ValueCompression(1, new DeflateValueCodec()).encode(random);
+
+        assertEquals(ValueCompression.UNCOMPRESSED, encoded.codec());
+        assertSame(random, encoded.bytes());
+    }
+
+    @Test
+    void shouldDecodeByStoredCodecId() {
+        ValueCodec fixed = new ValueCodec() {
+            @Override
+            public short id() {
+                return 7;
+            }
+
+            @Override
+            public byte[] encode(byte[] value) {
+                return new byte[1];
+            }
+
+            @Override
+            public byte[] decode(byte[] encoded) {
+                return LOG;
+            }
+        };
+        ValueCompression compression = new ValueCompression(1, fixed);
+        byte[] deflated = new DeflateValueCodec().encode(LOG);
+
+        assertArrayEquals(LOG, compression.decode((short) 7, new byte[1]));
+        assertArrayEquals(LOG, compression.decode(DeflateValueCodec.ID, deflated));
+        assertThrows(EVSException.class, () -> compression.decode((short) 9, deflated));
+    }
+}
@@ -0,0 +1,54 @@
+package com.evs.metrics;
+
+import com.evs.exception.EVSException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicrometerEVSMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MicrometerEVSMetrics metrics = new MicrometerEVSMetrics(registry);
+
+    @Test
+    void shouldTimeRepositoryCallsByOutcomeAndCause() {
+        assertEquals("ok", metrics.timeRepositoryCall("variable", "save", () -> "ok"));
+        assertThrows(EVSException.class, () -> metrics.timeRepositoryCall("variable", "save", () -> {
+            throw new EVSException("Failed to save variable", new SQLException("boom"));
+        }));
+
+        assertEquals(1, registry.get("evs.repository.calls")
+                .tags("operation", "save", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("evs.repository.calls")
+                .tags("operation", "save", "outcome", "error", "exception", "SQLException").timer().count());
+    }
+
+    @Test
+    void shouldRecordBatchRowsAndJsonErrors() {
+        metrics.recordBatchRows("saveBatch", 250);
+        metrics.recordJson("deserialize", 1_000, new IllegalArgumentException("bad json"));
+
+        assertEquals(250, registry.get("evs.batch.rows").tag("operation", "saveBatch").summary().totalAmount());
+        assertEquals(1, registry.get("evs.json.errors")
+                .tags("direction", "deserialize", "exception", "IllegalArgumentException").counter().count());
+    }
+
+    @Test
+    void shouldRegisterEachMeterOnce() {
+        for (int i = 0; i < 3; i++) {
+            metrics.recordRepositoryCall("variable", "save", 1_000, null);
+            metrics.recordBatchRows("saveBatch", 10);
+            metrics.recordJson("serialize", 1_000, null);
+        }
+        int meters = registry.getMeters().size();
+        metrics.recordRepositoryCall("variable", "save", 1_000, null);
+
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(4, registry.get("evs.repository.calls").tag("operation", "save").timer().count());
+        assertEquals(3, registry.get("evs.batch.rows").summary().count());
+        assertEquals(3, registry.get("evs.json.serialization").timer().count());
+    }
+}
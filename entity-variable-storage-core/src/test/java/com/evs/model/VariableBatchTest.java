@@ -0,0 +1,54 @@
+package com.evs.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableBatchTest {
+
+    @Test
+    void shouldStoreTypedValuesInColumns() {
+        UUID instanceId = UUID.randomUUID();
+        Instant at = Instant.parse("2024-05-01T10:15:30.123456Z");
+        VariableBatch batch = new VariableBatch(UUID.randomUUID(), 1)
+                .addLong(instanceId, "count", 7)
+                .at(at)
+                .addDouble(instanceId, "ratio", 0.25)
+                .addBoolean(instanceId, "active", true)
+                .addTimestamp(instanceId, "seen", at)
+                .addJson(instanceId, "meta", Map.of("k", "v"))
+                .addNull(instanceId, "missing", VariableType.STRING);
+
+        assertEquals(6, batch.size());
+        assertEquals(VariableType.INTEGER, batch.type(0));
+        assertEquals(7, batch.longValue(0));
+        assertFalse(batch.hasRegisteredAt(0));
+        assertEquals(0.25, batch.doubleValue(1));
+        assertEquals(1_714_558_530_123_456L, batch.registeredAtMicros(1));
+        assertTrue(batch.booleanValue(2));
+        assertEquals(1_714_558_530_123_456L, batch.timestampMicros(3));
+        assertEquals(Map.of("k", "v"), batch.objectValue(4));
+        assertTrue(batch.isNull(5));
+        assertFalse(batch.isNull(4));
+    }
+
+    @Test
+    void shouldGrowAndClear() {
+        UUID instanceId = UUID.randomUUID();
+        VariableBatch batch = new VariableBatch(UUID.randomUUID(), 16);
+        for (int i = 0; i < 100; i++) {
+            batch.addLong(instanceId, "n", i);
+        }
+        assertEquals(100, batch.size());
+        assertEquals(99, batch.longValue(99));
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.longValue(0));
+        assertThrows(IllegalArgumentException.class, () -> batch.addLong(null, "n", 1));
+    }
+}
@@ -0,0 +1,32 @@
+package com.evs.query;
+
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableAggregationTest {
+
+    @Test
+    void shouldNameBucketUnitsIndependentOfDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals("minute", VariableAggregation.TimeBucket.MINUTE.unit());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void shouldAcceptDuplicateVariableNames() {
+        VariableAggregation aggregation = VariableAggregation.builder()
+                .entityId(UUID.randomUUID()).variableNames("amount", "amount").valueType(VariableType.INTEGER).build();
+
+        assertEquals(Set.of("amount"), aggregation.variableNames());
+    }
+}
@@ -0,0 +1,62 @@
+package com.evs.query;
+
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableQueryCompilerTest {
+
+    private final UUID entityId = UUID.randomUUID();
+
+    @Test
+    void shouldCompileComparisonAgainstTypedColumn() {
+        SqlFragment fragment = VariableQueryCompiler.compile(entityId,
+                VariablePredicate.gt("amount", VariableType.INTEGER, 100), false);
+
+        assertEquals("EXISTS (SELECT 1 FROM variables v WHERE v.entity_id = ? AND v.entity_instance_id = ei.id"
+                + " AND v.variable_name = ? AND v.value_int > ?::bigint)", fragment.sql());
+        assertEquals(List.of(entityId, "amount", 100L), fragment.parameters());
+    }
+
+    @Test
+    void shouldComposeAndOrWithParametersInOrder() {
+        Instant since = Instant.parse("2025-01-01T00:00:00Z");
+        SqlFragment fragment = VariableQueryCompiler.compile(entityId, VariablePredicate.or(
+                VariablePredicate.and(
+                        VariablePredicate.eq("status_code", VariableType.STRING, "X"),
+                        VariablePredicate.gte("paid_at", VariableType.TIMESTAMP, since)),
+                VariablePredicate.in("score", VariableType.FLOAT, List.of(1, 2.5))), true);
+
+        assertTrue(fragment.sql().startsWith("((EXISTS"));
+        assertTrue(fragment.sql().contains(") AND EXISTS"));
+        assertTrue(fragment.sql().contains(") OR EXISTS"));
+        assertTrue(fragment.sql().contains("v.value_float IN (?::double precision, ?::double precision)"));
+        assertTrue(fragment.sql().contains("AND v.is_current"));
+        assertEquals(List.of(entityId, "status_code", "X", entityId, "paid_at", Timestamp.from(since),
+                entityId, "score", 1.0, 2.5), fragment.parameters());
+    }
+
+    @Test
+    void shouldEscapeLikeWildcardsInPrefix() {
+        SqlFragment fragment = VariableQueryCompiler.compile(entityId,
+                VariablePredicate.startsWith("code", "50%_off"), false);
+
+        assertTrue(fragment.sql().endsWith("v.value_string LIKE ? ESCAPE '\\')"));
+        assertEquals("50\\%\\_off%", fragment.parameters().get(2));
+    }
+
+    @Test
+    void shouldRejectUncomparableTypesAndMismatchedValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> VariablePredicate.eq("doc", VariableType.JSON, "{}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> VariableQueryCompiler.compile(entityId, VariablePredicate.eq("n", VariableType.INTEGER, "1"), false));
+        assertThrows(IllegalArgumentException.class, () -> VariablePredicate.in("n", VariableType.INTEGER, List.of()));
+    }
+}
@@ -2,7 +2,15 @@ package com.evs.repository;
 
 import com.evs.model.Entity;
 import com.evs.model.EntityInstance;
+import com.evs.model.EntityInstancePageRequest;
 import com.evs.model.EntityInstanceStatus;
+import com.evs.model.EntityInstanceWithVariables;
+import com.evs.model.Page;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import com.evs.query.VariablePredicate;
+import com.evs.query.VariableQuery;
+import com.evs.service.PartitionManager;
 import com.zaxxer.hikari.HikariDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,7 +20,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,11 +41,13 @@ class EntityInstanceRepositoryTest {
 
     private EntityInstanceRepository instanceRepository;
     private EntityRepository entityRepository;
+    private DataSource dataSource;
     private UUID entityId;
 
     @BeforeEach
     void setUp() {
         DataSource ds = createDataSource();
+        dataSource = ds;
         runMigrations(ds);
         entityRepository = new EntityRepository(ds);
         instanceRepository = new EntityInstanceRepository(ds);
@@ -99,4 +113,134 @@ class EntityInstanceRepositoryTest {
         List<EntityInstance> instances = instanceRepository.findByEntityId(entity.id());
         assertEquals(2, instances.size());
     }
+
+    @Test
+    void shouldPageThroughInstancesWithKeyset() {
+        Entity entity = entityRepository.save(
+                Entity.builder().name("UserPaged").displayName("User").build());
+        Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            instanceRepository.save(EntityInstance.builder()
+                    .entityId(entity.id())
+                    .uuid(UUID.randomUUID())
+                    .status(i == 0 ? EntityInstanceStatus.ARCHIVED : EntityInstanceStatus.ACTIVE)
+                    .registeredAt(base.minus(i, ChronoUnit.MINUTES))
+                    .build());
+        }
+
+        List<EntityInstance> seen = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            Page<EntityInstance> page = instanceRepository.findPage(EntityInstancePageRequest.builder()
+                    .entityId(entity.id())
+                    .pageSize(2)
+                    .pageToken(token)
+                    .build());
+            seen.addAll(page.items());
+            token = page.nextPageToken();
+            pages++;
+        } while (token != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).registeredAt().isAfter(seen.get(i).registeredAt()));
+        }
+
+        Page<EntityInstance> active = instanceRepository.findPage(EntityInstancePageRequest.builder()
+                .entityId(entity.id())
+                .status(EntityInstanceStatus.ACTIVE)
+                .pageSize(10)
+                .build());
+        assertEquals(4, active.items().size());
+        assertFalse(active.hasNext());
+    }
+
+    @Test
+    void shouldQueryInstancesByVariableValues() {
+        Entity orders = entityRepository.save(Entity.builder()
+                .name("Order_" + UUID.randomUUID().toString().substring(0, 8)).displayName("Order").build());
+        new PartitionManager(dataSource).createEntityPartition(orders.id(), orders.name());
+        VariableRepository variableRepository = new VariableRepository(dataSource);
+
+        List<UUID> matching = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            EntityInstance instance = instanceRepository.save(
+                    EntityInstance.builder().entityId(orders.id()).uuid(UUID.randomUUID()).build());
+            String code = i % 2 == 0 ? "PAID" : "OPEN";
+            variableRepository.saveBatch(List.of(
+                    Variable.builder().entityId(orders.id()).entityInstanceId(instance.id())
+                            .variableName("status_code").variableType(VariableType.STRING).value(code)
+                            .registeredAt(instance.registeredAt()).build(),
+                    Variable.builder().entityId(orders.id()).entityInstanceId(instance.id())
+                            .variableName("amount").variableType(VariableType.INTEGER).value(i * 50L)
+                            .registeredAt(instance.registeredAt()).build()));
+            if (code.equals("PAID") && i * 50L > 100) {
+                matching.add(instance.id());
+            }
+        }
+
+        VariableQuery query = VariableQuery.builder()
+                .entityId(orders.id())
+                .where(VariablePredicate.and(
+                        VariablePredicate.eq("status_code", VariableType.STRING, "PAID"),
+                        VariablePredicate.gt("amount", VariableType.INTEGER, 100)))
+                .limit(1)
+                .build();
+
+        List<UUID> found = new ArrayList<>();
+        Page<EntityInstance> page = instanceRepository.findByQuery(query);
+        found.addAll(page.items().stream().map(EntityInstance::id).toList());
+        assertTrue(page.hasNext());
+        page = instanceRepository.findByQuery(VariableQuery.builder()
+                .entityId(orders.id()).where(query.where()).limit(1).pageToken(page.nextPageToken()).build());
+        found.addAll(page.items().stream().map(EntityInstance::id).toList());
+        assertFalse(page.hasNext());
+
+        assertEquals(matching.size(), found.size());
+        assertTrue(found.containsAll(matching));
+
+        Page<EntityInstance> prefixed = instanceRepository.findByQuery(VariableQuery.builder()
+                .entityId(orders.id())
+                .where(VariablePredicate.or(
+                        VariablePredicate.startsWith("status_code", "OP"),
+                        VariablePredicate.in("amount", VariableType.INTEGER, List.of(0L, 200L))))
+                .build());
+        assertEquals(5, prefixed.items().size());
+    }
+
+    @Test
+    void shouldCreateInstanceWithVariablesAtomically() {
+        Entity devices = entityRepository.save(Entity.builder()
+                .name("Device_" + UUID.randomUUID().toString().substring(0, 8)).displayName("Device").build());
+        new PartitionManager(dataSource).createEntityPartition(devices.id(), devices.name());
+        VariableRepository variableRepository = new VariableRepository(dataSource);
+
+        EntityInstanceWithVariables created = instanceRepository.saveWithVariables(
+                EntityInstance.builder().entityId(devices.id()).uuid(UUID.randomUUID()).build(),
+                List.of(
+                        Variable.builder().variableName("serial").variableType(VariableType.STRING).value("X-1").build(),
+                        Variable.builder().variableName("firmware").variableType(VariableType.INTEGER).value(42L).build(),
+                        Variable.builder().variableName("config").variableType(VariableType.JSON)
+                                .value(Map.of("mode", "eco")).build(),
+                        Variable.builder().variableName("blob").variableType(VariableType.BINARY)
+                                .value(new byte[]{1, 2}).build()));
+
+        UUID instanceId = created.instance().id();
+        assertEquals(4, created.variables().size());
+        assertTrue(created.variables().stream().allMatch(v -> v.id() != null && instanceId.equals(v.entityInstanceId())));
+        assertEquals(42L, variableRepository.findByInstanceIdAndName(instanceId, "firmware").orElseThrow().asLong());
+        assertEquals("eco", variableRepository.findByInstanceIdAndName(instanceId, "config").orElseThrow().asJson().get("mode"));
+        for (Variable variable : created.variables()) {
+            assertEquals(variable.id(), variableRepository.findByInstanceIdAndName(
+                    instanceId, variable.variableName()).orElseThrow().id(), variable.variableName());
+        }
+
+        UUID failedId = UUID.randomUUID();
+        assertThrows(com.evs.exception.EVSException.class, () -> instanceRepository.saveWithVariables(
+                EntityInstance.builder().id(failedId).entityId(devices.id()).uuid(UUID.randomUUID()).build(),
+                List.of(Variable.builder().variableName(null).variableType(VariableType.STRING).value("x").build())));
+        assertTrue(instanceRepository.findById(failedId).isEmpty());
+    }
 }
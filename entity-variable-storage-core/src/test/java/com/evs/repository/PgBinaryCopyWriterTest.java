@@ -0,0 +1,71 @@
+package com.evs.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgBinaryCopyWriterTest {
+
+    @Test
+    void shouldWriteHeaderRowAndTrailer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(bytes);
+        UUID id = UUID.randomUUID();
+
+        writer.writeHeader();
+        writer.startRow(4);
+        writer.writeUuid(id);
+        writer.writeText("hi");
+        writer.writeLong(42L);
+        writer.writeNull();
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertEquals("PGCOPY\n", new String(signature, 0, 7));
+        assertEquals((byte) 0xFF, signature[7]);
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+
+        assertEquals(4, in.readShort());
+        assertEquals(16, in.readInt());
+        assertEquals(id, new UUID(in.readLong(), in.readLong()));
+        assertEquals(2, in.readInt());
+        assertEquals('h', in.readByte());
+        assertEquals('i', in.readByte());
+        assertEquals(8, in.readInt());
+        assertEquals(42L, in.readLong());
+        assertEquals(-1, in.readInt());
+
+        assertEquals(-1, in.readShort());
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    void shouldPrefixJsonbWithVersion() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(bytes);
+
+        writer.writeJsonb("{}");
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(3, in.readInt());
+        assertEquals(1, in.readByte());
+    }
+
+    @Test
+    void shouldEncodeTimestampsRelativeToPostgresEpoch() {
+        assertEquals(0L, PgBinaryCopyWriter.toPgMicros(Instant.parse("2000-01-01T00:00:00Z")));
+        assertEquals(1_500_000L, PgBinaryCopyWriter.toPgMicros(Instant.parse("2000-01-01T00:00:01.5Z")));
+        assertEquals(-1_000_000L, PgBinaryCopyWriter.toPgMicros(Instant.parse("1999-12-31T23:59:59Z")));
+    }
+}
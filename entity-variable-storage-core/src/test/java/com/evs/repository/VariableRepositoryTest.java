@@ -1,9 +1,17 @@
 package com.evs.repository;
 
+import com.evs.codec.DeflateValueCodec;
+import com.evs.config.EVSConfig;
 import com.evs.model.Entity;
+import com.evs.model.Downsampling;
 import com.evs.model.EntityInstance;
+import com.evs.model.HistoryPoint;
+import com.evs.model.TimeRange;
 import com.evs.model.Variable;
+import com.evs.model.VariableBatch;
 import com.evs.model.VariableType;
+import com.evs.query.AggregationRow;
+import com.evs.query.VariableAggregation;
 import com.evs.service.PartitionManager;
 import com.zaxxer.hikari.HikariDataSource;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,10 +22,20 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +48,7 @@ class VariableRepositoryTest {
             .withUsername("test")
             .withPassword("test");
 
+    private DataSource dataSource;
     private VariableRepository variableRepository;
     private EntityInstanceRepository instanceRepository;
     private UUID entityId;
@@ -38,6 +57,7 @@ class VariableRepositoryTest {
     @BeforeEach
     void setUp() {
         DataSource ds = createDataSource();
+        dataSource = ds;
         runMigrations(ds);
         EntityRepository entityRepository = new EntityRepository(ds);
         instanceRepository = new EntityInstanceRepository(ds);
@@ -113,6 +133,336 @@ class VariableRepositoryTest {
         assertEquals(2, found.size());
     }
 
+    @Test
+    void shouldCopyBatch() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        List<Variable> variables = List.of(
+                Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                        .variableName("count").variableType(VariableType.INTEGER).value(7L)
+                        .registeredAt(instance.registeredAt()).build(),
+                Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                        .variableName("prefs").variableType(VariableType.JSON).value(Map.of("lang", "uz"))
+                        .registeredAt(instance.registeredAt()).build()
+        );
+
+        long copied = variableRepository.copyBatch(variables);
+
+        assertEquals(2, copied);
+        assertEquals(7L, variableRepository.findByInstanceIdAndName(instanceId, "count").orElseThrow().asLong());
+        assertEquals("uz", variableRepository.findByInstanceIdAndName(instanceId, "prefs").orElseThrow().asJson().get("lang"));
+    }
+
+    @Test
+    void shouldWriteColumnarBatchWithCopyAndInsert() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        VariableBatch batch = new VariableBatch(entityId)
+                .at(instance.registeredAt())
+                .addLong(instanceId, "c_count", 7)
+                .addDouble(instanceId, "c_ratio", 0.5)
+                .addBoolean(instanceId, "c_flag", true)
+                .addString(instanceId, "c_label", "x")
+                .addJson(instanceId, "c_meta", Map.of("k", "v"))
+                .addTimestamp(instanceId, "c_seen", instance.registeredAt())
+                .addNull(instanceId, "c_empty", VariableType.INTEGER);
+
+        assertEquals(7, variableRepository.copyBatch(batch));
+        assertEquals(7L, variableRepository.findByInstanceIdAndName(instanceId, "c_count").orElseThrow().asLong());
+        assertEquals(0.5, variableRepository.findByInstanceIdAndName(instanceId, "c_ratio").orElseThrow().asDouble());
+        assertEquals("v", variableRepository.findByInstanceIdAndName(instanceId, "c_meta").orElseThrow().asJson().get("k"));
+        assertEquals(instance.registeredAt().truncatedTo(ChronoUnit.MICROS),
+                variableRepository.findByInstanceIdAndName(instanceId, "c_seen").orElseThrow().asTimestamp());
+        assertNull(variableRepository.findByInstanceIdAndName(instanceId, "c_empty").orElseThrow().asLong());
+
+        batch.clear();
+        for (int i = 0; i < 123; i++) {
+            batch.addLong(instanceId, "i_" + i, i).addString(instanceId, "s_" + i, "v" + i);
+        }
+        assertEquals(246, variableRepository.insertBatch(batch));
+        assertEquals(122L, variableRepository.findByInstanceIdAndName(instanceId, "i_122").orElseThrow().asLong());
+        assertEquals(253, variableRepository.findByEntityInstanceId(instanceId).size());
+    }
+
+    @Test
+    void shouldFindVariablesWithinEntityAndTimeRange() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        variableRepository.save(Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                .variableName("city").variableType(VariableType.STRING).value("Tashkent")
+                .registeredAt(instance.registeredAt()).build());
+
+        assertEquals(Optional.of(entityId), variableRepository.findEntityIdByInstanceId(instanceId));
+
+        TimeRange around = TimeRange.between(
+                instance.registeredAt().minus(1, ChronoUnit.HOURS),
+                instance.registeredAt().plus(1, ChronoUnit.HOURS));
+        assertEquals(1, variableRepository.findByEntityInstanceId(entityId, instanceId, around).size());
+        assertTrue(variableRepository.findByInstanceIdAndName(entityId, instanceId, "city", around).isPresent());
+
+        TimeRange later = TimeRange.since(instance.registeredAt().plus(1, ChronoUnit.HOURS));
+        assertTrue(variableRepository.findByEntityInstanceId(entityId, instanceId, later).isEmpty());
+        assertTrue(variableRepository.findByEntityInstanceId(UUID.randomUUID(), instanceId, TimeRange.all()).isEmpty());
+    }
+
+    @Test
+    void shouldStreamVariablesByEntityWithCursor() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        List<Variable> variables = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            variables.add(Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                    .variableName("s" + i).variableType(VariableType.INTEGER).value((long) i)
+                    .registeredAt(instance.registeredAt()).build());
+        }
+        variableRepository.saveBatch(variables);
+
+        EVSConfig config = new EVSConfig();
+        config.setStreamFetchSize(4);
+        VariableRepository streaming = new VariableRepository(dataSource, config);
+
+        try (Stream<Variable> stream = streaming.streamByEntity(entityId, TimeRange.all())) {
+            assertTrue(stream.filter(v -> v.entityInstanceId().equals(instanceId)).count() >= 25);
+        }
+
+        long[] seen = {0};
+        long count = streaming.forEachByEntity(entityId, TimeRange.since(instance.registeredAt()), v -> seen[0]++);
+        assertEquals(seen[0], count);
+        assertTrue(count >= 25);
+    }
+
+    @Test
+    void shouldUpsertCurrentValueInPlace() {
+        Variable first = variableRepository.upsert(Variable.builder()
+                .entityInstanceId(instanceId)
+                .variableName("status").variableType(VariableType.STRING).value("new")
+                .build());
+        Variable second = variableRepository.upsert(Variable.builder()
+                .entityInstanceId(instanceId)
+                .variableName("status").variableType(VariableType.STRING).value("active")
+                .build());
+
+        assertEquals(first.id(), second.id());
+        assertEquals(entityId, second.entityId());
+
+        List<Variable> rows = variableRepository.findByEntityInstanceId(instanceId);
+        assertEquals(1, rows.size());
+        assertEquals("active", rows.getFirst().asString());
+
+        int written = variableRepository.upsertBatch(List.of(
+                Variable.builder().entityInstanceId(instanceId)
+                        .variableName("status").variableType(VariableType.STRING).value("closed").build(),
+                Variable.builder().entityInstanceId(instanceId)
+                        .variableName("score").variableType(VariableType.INTEGER).value(7L).build(),
+                Variable.builder().entityInstanceId(UUID.randomUUID())
+                        .variableName("score").variableType(VariableType.INTEGER).value(8L).build()
+        ));
+
+        // the variable of the missing instance is skipped
+        assertEquals(2, written);
+        assertEquals(2, variableRepository.findByEntityInstanceId(instanceId).size());
+        assertEquals("closed", variableRepository.findByInstanceIdAndName(instanceId, "status").orElseThrow().asString());
+    }
+
+    @Test
+    void shouldPreferCurrentValueOverAppendedRows() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        variableRepository.save(Variable.builder()
+                .entityId(entityId).entityInstanceId(instanceId)
+                .variableName("tier").variableType(VariableType.STRING).value("old")
+                .registeredAt(instance.registeredAt().plus(1, ChronoUnit.MINUTES))
+                .build());
+        variableRepository.upsert(Variable.builder()
+                .entityInstanceId(instanceId)
+                .variableName("tier").variableType(VariableType.STRING).value("gold")
+                .build());
+
+        assertEquals("gold", variableRepository.findByInstanceIdAndName(instanceId, "tier").orElseThrow().asString());
+        assertEquals("gold", variableRepository.findByEntityInstanceId(instanceId).getLast().asString());
+    }
+
+    @Test
+    void shouldQueryJsonVariablesInDatabase() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        String name = "profile_" + UUID.randomUUID().toString().substring(0, 8);
+        variableRepository.saveBatch(List.of(
+                Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                        .variableName(name).variableType(VariableType.JSON)
+                        .value(Map.of("plan", "gold", "seats", 12, "tags", List.of("vip")))
+                        .registeredAt(instance.registeredAt()).build(),
+                Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                        .variableName(name).variableType(VariableType.JSON)
+                        .value(Map.of("plan", "free", "say \"hi\"", true))
+                        .registeredAt(instance.registeredAt()).build()));
+
+        assertEquals(1, variableRepository.findByJsonContains(entityId, name, Map.of("plan", "gold"), TimeRange.all()).size());
+        assertEquals(1, variableRepository.findByJsonPath(entityId, name, "$.seats ? (@ > 10)", TimeRange.all()).size());
+        assertEquals(1, variableRepository.findByJsonPath(entityId, name, "$.tags[*] ? (@ == \"vip\")", TimeRange.all()).size());
+        assertEquals(1, variableRepository.findByJsonKeyExists(entityId, name, "say \"hi\"", TimeRange.all()).size());
+        assertEquals(2, variableRepository.findByJsonKeyExists(entityId, name, "plan", TimeRange.all()).size());
+        assertTrue(variableRepository.findByJsonKeyExists(entityId, name, "missing", TimeRange.all()).isEmpty());
+    }
+
+    @Test
+    void shouldAggregateNumericVariablesInDatabase() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        EntityInstance other = instanceRepository.save(
+                EntityInstance.builder().entityId(entityId).uuid(UUID.randomUUID()).build());
+        String amount = "amount_" + UUID.randomUUID().toString().substring(0, 8);
+        String region = "region_" + UUID.randomUUID().toString().substring(0, 8);
+
+        List<Variable> variables = new ArrayList<>();
+        for (long v : new long[]{10, 20, 30}) {
+            variables.add(Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                    .variableName(amount).variableType(VariableType.INTEGER).value(v)
+                    .registeredAt(instance.registeredAt()).build());
+        }
+        variables.add(Variable.builder().entityId(entityId).entityInstanceId(other.id())
+                .variableName(amount).variableType(VariableType.INTEGER).value(100L)
+                .registeredAt(other.registeredAt()).build());
+        variableRepository.saveBatch(variables);
+        variableRepository.upsert(Variable.builder().entityInstanceId(instanceId)
+                .variableName(region).variableType(VariableType.STRING).value("north").build());
+        variableRepository.upsert(Variable.builder().entityInstanceId(other.id())
+                .variableName(region).variableType(VariableType.STRING).value("south").build());
+
+        List<AggregationRow> total = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(entityId).variableNames(amount, amount).valueType(VariableType.INTEGER)
+                .percentiles(0.5).build());
+        assertEquals(1, total.size());
+        assertEquals(4, total.getFirst().count());
+        assertEquals(160.0, total.getFirst().sum());
+        assertEquals(10.0, total.getFirst().min());
+        assertEquals(100.0, total.getFirst().max());
+        assertEquals(25.0, total.getFirst().percentiles().get(0.5));
+
+        List<AggregationRow> byRegion = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(entityId).variableNames(amount).valueType(VariableType.INTEGER)
+                .groupByStringVariable(region).build());
+        assertEquals(2, byRegion.size());
+        assertEquals("north", byRegion.get(0).group());
+        assertEquals(20.0, byRegion.get(0).avg());
+        assertEquals("south", byRegion.get(1).group());
+        assertEquals(1, byRegion.get(1).count());
+
+        List<AggregationRow> byDay = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(entityId).variableNames(amount).valueType(VariableType.INTEGER)
+                .groupByTimeBucket(VariableAggregation.TimeBucket.DAY).build());
+        assertEquals(4, byDay.stream().mapToLong(AggregationRow::count).sum());
+        assertTrue(byDay.stream().allMatch(row -> row.bucket() != null));
+
+        TimeRange later = TimeRange.since(other.registeredAt().plus(1, ChronoUnit.HOURS));
+        List<AggregationRow> empty = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(entityId).variableNames(amount).valueType(VariableType.INTEGER).range(later).build());
+        assertEquals(0, empty.getFirst().count());
+        assertNull(empty.getFirst().sum());
+    }
+
+    @Test
+    void shouldAggregateEachSetValueOnce() {
+        EntityInstance other = instanceRepository.save(
+                EntityInstance.builder().entityId(entityId).uuid(UUID.randomUUID()).build());
+        String amount = "amount_" + UUID.randomUUID().toString().substring(0, 8);
+        for (long v : new long[]{10, 20}) {
+            variableRepository.upsert(Variable.builder().entityInstanceId(instanceId)
+                    .variableName(amount).variableType(VariableType.INTEGER).value(v).build());
+        }
+        variableRepository.upsert(Variable.builder().entityInstanceId(other.id())
+                .variableName(amount).variableType(VariableType.INTEGER).value(30L).build());
+
+        // without keepHistory only the current rows hold the values
+        AggregationRow current = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(entityId).variableNames(amount).valueType(VariableType.INTEGER).build()).getFirst();
+        assertEquals(2, current.count());
+        assertEquals(50.0, current.sum());
+
+        Entity tracked = new EntityRepository(dataSource).save(Entity.builder()
+                .name("Tracked_" + UUID.randomUUID().toString().substring(0, 8)).displayName("Tracked")
+                .schemaDefinition(Map.of("keepHistory", true)).build());
+        new PartitionManager(dataSource).createEntityPartition(tracked.id(), tracked.name());
+        UUID meter = instanceRepository.save(
+                EntityInstance.builder().entityId(tracked.id()).uuid(UUID.randomUUID()).build()).id();
+        for (long v : new long[]{10, 20}) {
+            variableRepository.upsert(Variable.builder().entityInstanceId(meter)
+                    .variableName(amount).variableType(VariableType.INTEGER).value(v).build());
+        }
+
+        // with keepHistory every value has a history row and the current row is not counted again
+        AggregationRow history = variableRepository.aggregate(VariableAggregation.builder()
+                .entityId(tracked.id()).variableNames(amount).valueType(VariableType.INTEGER).build()).getFirst();
+        assertEquals(2, history.count());
+        assertEquals(30.0, history.sum());
+    }
+
+    @Test
+    void shouldReadAndDownsampleHistory() {
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        Instant start = instance.registeredAt().truncatedTo(ChronoUnit.HOURS);
+        List<Variable> variables = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            variables.add(Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                    .variableName("temperature").variableType(VariableType.FLOAT).value((double) i)
+                    .registeredAt(start.plus(i * 10L, ChronoUnit.MINUTES)).build());
+        }
+        variableRepository.saveBatch(variables);
+        TimeRange hour = TimeRange.between(start, start.plus(1, ChronoUnit.HOURS));
+
+        List<Variable> oldest = variableRepository.findHistory(entityId, instanceId, "temperature", hour, false, 3);
+        assertEquals(List.of(0.0, 1.0, 2.0), oldest.stream().map(Variable::asDouble).toList());
+        List<Variable> newest = variableRepository.findHistory(entityId, instanceId, "temperature", hour, true, 2);
+        assertEquals(List.of(5.0, 4.0), newest.stream().map(Variable::asDouble).toList());
+
+        List<HistoryPoint> avg = variableRepository.findDownsampledHistory(
+                entityId, instanceId, "temperature", hour, Duration.ofMinutes(30), Downsampling.AVG);
+        assertEquals(2, avg.size());
+        assertEquals(start, avg.get(0).bucket());
+        assertEquals(1.0, avg.get(0).value());
+        assertEquals(3, avg.get(0).count());
+
+        List<HistoryPoint> last = variableRepository.findDownsampledHistory(
+                entityId, instanceId, "temperature", hour, Duration.ofMinutes(30), Downsampling.LAST);
+        assertEquals(5.0, last.get(1).value());
+    }
+
+    @Test
+    void shouldCompressLargeBinaryValuesOnEveryWritePath() throws SQLException {
+        EVSConfig config = new EVSConfig();
+        config.setValueCompressionThreshold(1024);
+        VariableRepository repository = new VariableRepository(dataSource, config);
+        EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
+        byte[] log = "2024-05-01T10:00:00Z INFO request handled in 12ms\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+        byte[] small = {1, 2, 3};
+
+        repository.save(binary("saved", log, instance.registeredAt()));
+        repository.saveBatch(List.of(binary("batched", log, instance.registeredAt()),
+                binary("small", small, instance.registeredAt())));
+        repository.copyBatch(List.of(binary("copied", log, instance.registeredAt())));
+        repository.upsert(binary("current", log, null));
+
+        Map<String, Variable> found = new java.util.HashMap<>();
+        repository.findByEntityInstanceId(instanceId).forEach(v -> found.put(v.variableName(), v));
+        for (String name : List.of("saved", "batched", "copied", "current")) {
+            assertArrayEquals(log, found.get(name).asBinary(), name);
+        }
+        assertArrayEquals(small, found.get("small").asBinary());
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT variable_name, value_codec, octet_length(value_binary) FROM variables WHERE entity_instance_id = ?")) {
+            ps.setObject(1, instanceId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    boolean compressed = !rs.getString(1).equals("small");
+                    assertEquals(compressed ? DeflateValueCodec.ID : 0, rs.getShort(2));
+                    assertTrue(!compressed || rs.getInt(3) < log.length / 10);
+                }
+            }
+        }
+        assertArrayEquals(log, variableRepository.findByInstanceIdAndName(instanceId, "saved").orElseThrow().asBinary());
+    }
+
+    private Variable binary(String name, byte[] value, Instant registeredAt) {
+        return Variable.builder().entityId(entityId).entityInstanceId(instanceId)
+                .variableName(name).variableType(VariableType.BINARY).value(value)
+                .registeredAt(registeredAt).build();
+    }
+
     @Test
     void shouldHandleJsonVariable() {
         EntityInstance instance = instanceRepository.findById(instanceId).orElseThrow();
@@ -0,0 +1,121 @@
+package com.evs.repository;
+
+import com.evs.codec.DeflateValueCodec;
+import com.evs.codec.ValueCompression;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableRowMapperTest {
+
+    private final AtomicInteger lookupsByName = new AtomicInteger();
+
+    @Test
+    void shouldMapRowByResolvedColumnPositions() throws SQLException {
+        OffsetDateTime registeredAt = OffsetDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        ResultSet rs = stub(row(VariableType.INTEGER, 42L, registeredAt));
+
+        VariableRowMapper mapper = new VariableRowMapper(rs, ValueCompression.NONE);
+        int lookups = lookupsByName.get();
+        Variable first = mapper.map();
+        Variable second = mapper.map();
+
+        assertEquals(lookups, lookupsByName.get());
+        assertEquals(VariableType.INTEGER, first.variableType());
+        assertEquals(42L, first.asLong());
+        assertEquals(registeredAt.toInstant(), first.registeredAt());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void shouldMapNullValues() throws SQLException {
+        Variable variable = new VariableRowMapper(stub(row(VariableType.FLOAT, null, OffsetDateTime.now())), ValueCompression.NONE).map();
+
+        assertEquals(VariableType.FLOAT, variable.variableType());
+        assertNull(variable.value());
+    }
+
+    @Test
+    void shouldDecompressBinaryValuesByStoredCodec() throws SQLException {
+        byte[] log = "INFO request handled\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+        ValueCompression compression = new ValueCompression(64, new DeflateValueCodec());
+        ValueCompression.Encoded encoded = compression.encode(log);
+        Map<String, Object> row = row(VariableType.BINARY, encoded.bytes(), OffsetDateTime.now());
+        row.put("value_codec", encoded.codec());
+
+        Variable variable = new VariableRowMapper(stub(row), ValueCompression.NONE).map();
+
+        assertEquals(DeflateValueCodec.ID, encoded.codec());
+        assertArrayEquals(log, variable.asBinary());
+    }
+
+    private static Map<String, Object> row(VariableType type, Object value, OffsetDateTime registeredAt) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", 1L);
+        columns.put("entity_id", UUID.randomUUID());
+        columns.put("entity_instance_id", UUID.randomUUID());
+        columns.put("variable_name", "v");
+        columns.put("variable_type", type.name());
+        for (VariableType column : VariableType.values()) {
+            columns.put(column.getColumnName(), null);
+        }
+        columns.put(type.getColumnName(), value);
+        columns.put("value_codec", ValueCompression.UNCOMPRESSED);
+        columns.put("is_indexed", false);
+        columns.put("is_sensitive", false);
+        columns.put("is_encrypted", false);
+        columns.put("registered_at", registeredAt);
+        columns.put("created_at", registeredAt);
+        columns.put("updated_at", registeredAt);
+        columns.put("created_by", null);
+        return columns;
+    }
+
+    /**
+     * Single-row result set; by-label getters are rejected so only positional reads succeed.
+     */
+    private ResultSet stub(Map<String, Object> row) {
+        List<String> columns = new ArrayList<>(row.keySet());
+        Object[] values = columns.stream().map(row::get).toArray();
+        Object[] last = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("wasNull")) {
+                        return last[0] == null;
+                    }
+                    if (name.equals("findColumn")) {
+                        lookupsByName.incrementAndGet();
+                        return columns.indexOf((String) args[0]) + 1;
+                    }
+                    if (!name.startsWith("get") || !(args[0] instanceof Integer column)) {
+                        throw new UnsupportedOperationException(name);
+                    }
+                    Object value = values[column - 1];
+                    last[0] = value;
+                    return switch (name) {
+                        case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                        case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                        case "getBoolean" -> value != null && (Boolean) value;
+                        default -> value;
+                    };
+                });
+    }
+}
@@ -0,0 +1,51 @@
+package com.evs.repository;
+
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableSqlTemplatesTest {
+
+    @Test
+    void shouldSplitRowsIntoFixedShapes() {
+        assertEquals(List.of(1024, 128, 64, 16, 2), VariableSqlTemplates.split(1234));
+        assertEquals(List.of(1024, 1024), VariableSqlTemplates.split(2048));
+        assertTrue(VariableSqlTemplates.split(0).isEmpty());
+    }
+
+    @Test
+    void shouldBoundStatementsPerBatch() {
+        assertEquals(8, VariableSqlTemplates.split(999).size());
+        assertEquals(10, VariableSqlTemplates.split(1023).size());
+        for (int rows = 1; rows <= 4096; rows++) {
+            List<Integer> shapes = VariableSqlTemplates.split(rows);
+            assertEquals(rows, shapes.stream().mapToInt(Integer::intValue).sum());
+            assertTrue(shapes.size() <= rows / 1024 + 10, rows + " rows took " + shapes.size() + " statements");
+        }
+    }
+
+    @Test
+    void shouldReuseTheSameStatementText() {
+        String insert = VariableSqlTemplates.insert(VariableType.INTEGER, 16);
+
+        assertSame(insert, VariableSqlTemplates.insert(VariableType.INTEGER, 16));
+        assertTrue(insert.contains("value_int"));
+        assertEquals(16 * VariableSqlTemplates.INSERT_ROW_PARAMETERS, insert.chars().filter(c -> c == '?').count());
+        assertSame(VariableSqlTemplates.upsert(VariableType.JSON, true), VariableSqlTemplates.upsert(VariableType.JSON, true));
+        assertThrows(IllegalArgumentException.class, () -> VariableSqlTemplates.insert(VariableType.INTEGER, 7));
+    }
+
+    @Test
+    void shouldBatchTheCurrentRowUpsertAsTopLevelStatement() {
+        String batched = VariableSqlTemplates.upsert(VariableType.INTEGER, false);
+        String returning = VariableSqlTemplates.upsert(VariableType.INTEGER, true);
+
+        assertFalse(batched.contains("RETURNING"));
+        assertTrue(batched.indexOf("hist AS") < batched.indexOf("ON CONFLICT"));
+        assertTrue(batched.strip().endsWith("updated_at = now()"));
+        assertEquals(returning.chars().filter(c -> c == '?').count(), batched.chars().filter(c -> c == '?').count());
+    }
+}
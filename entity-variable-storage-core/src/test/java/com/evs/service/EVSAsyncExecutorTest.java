@@ -0,0 +1,57 @@
+package com.evs.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EVSAsyncExecutorTest {
+
+    @Test
+    void shouldRunOnVirtualThreads() {
+        try (EVSAsyncExecutor executor = new EVSAsyncExecutor(2)) {
+            assertTrue(executor.submit(() -> Thread.currentThread().isVirtual()).join());
+        }
+    }
+
+    @Test
+    void shouldNotExceedConcurrencyLimit() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        try (EVSAsyncExecutor executor = new EVSAsyncExecutor(3)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(executor.run(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        assertTrue(peak.get() <= 3, "peak concurrency was " + peak.get());
+    }
+
+    @Test
+    void shouldPropagateFailures() {
+        try (EVSAsyncExecutor executor = new EVSAsyncExecutor(1)) {
+            CompletableFuture<Object> future = executor.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+}
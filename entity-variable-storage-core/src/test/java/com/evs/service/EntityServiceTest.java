@@ -9,7 +9,11 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +28,7 @@ class EntityServiceTest {
             .withPassword("test");
 
     private EntityService entityService;
+    private com.evs.config.EVSFactory factory;
 
     @BeforeEach
     void setUp() {
@@ -33,7 +38,7 @@ class EntityServiceTest {
         config.setPassword(postgres.getPassword());
         config.setMaximumPoolSize(5);
 
-        com.evs.config.EVSFactory factory = new com.evs.config.EVSFactory(config);
+        factory = new com.evs.config.EVSFactory(config);
         entityService = factory.entityService();
     }
 
@@ -64,6 +69,32 @@ class EntityServiceTest {
         );
     }
 
+    @Test
+    void shouldServeCachedEntityByIdAndName() {
+        Entity entity = entityService.createEntity(
+                Entity.builder().name("Warehouse").displayName("Warehouse").build()
+        );
+
+        Entity byName = entityService.getEntityByName("Warehouse");
+        Entity byId = entityService.getEntity(entity.id());
+
+        assertEquals(entity.id(), byName.id());
+        assertSame(byName, byId);
+        assertSame(byName, entityService.getEntityByName("Warehouse"));
+    }
+
+    @Test
+    void shouldPreloadCatalog() {
+        Entity entity = entityService.createEntity(
+                Entity.builder().name("Supplier").displayName("Supplier").build()
+        );
+        entityService.invalidateCatalog();
+
+        entityService.preloadCatalog();
+
+        assertEquals(entity.id(), entityService.getEntityByName("Supplier").id());
+    }
+
     @Test
     void shouldFindAllEntities() {
         entityService.createEntity(Entity.builder().name("A").displayName("A").build());
@@ -72,4 +103,34 @@ class EntityServiceTest {
         List<Entity> all = entityService.findAll();
         assertTrue(all.size() >= 2);
     }
+
+    @Test
+    void shouldCreateDeclaredVariableIndexesOnEntityPartitions() throws Exception {
+        Entity entity = entityService.createEntity(Entity.builder()
+                .name("Invoice")
+                .displayName("Invoice")
+                .schemaDefinition(Map.of("variables", Map.of(
+                        "amount", Map.of("type", "INTEGER", "indexed", true),
+                        "note", Map.of("type", "STRING"))))
+                .build());
+        // createEntity only schedules the build; this waits for it on the advisory lock
+        factory.variableIndexManager().ensureIndexes(entity);
+
+        try (Connection conn = factory.getDataSource().getConnection();
+             PreparedStatement ps = conn.prepareStatement("""
+                     SELECT count(*) FROM variable_index_metadata m
+                     JOIN pg_indexes i ON i.indexname = m.index_name
+                     WHERE m.entity_id = ? AND m.variable_name = 'amount'
+                       AND i.indexdef LIKE '%value_int%'
+                     """)) {
+            ps.setObject(1, entity.id());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                // current month plus the configured months ahead
+                assertEquals(factory.getConfig().getPartitionMonthsAhead() + 1, rs.getInt(1));
+            }
+        }
+
+        assertTrue(factory.variableIndexManager().ensureIndexes(entity).isEmpty());
+    }
 }
@@ -0,0 +1,85 @@
+package com.evs.service;
+
+import com.evs.config.EVSConfig;
+import com.evs.config.EVSFactory;
+import com.evs.model.Entity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class PartitionManagerTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+            .withDatabaseName("evs_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private EVSFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        EVSConfig config = new EVSConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(5);
+        config.setPartitionMaintenanceEnabled(false);
+
+        factory = new EVSFactory(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void shouldExtendPartitionHorizonOnlyOnce() {
+        Entity entity = factory.entityService().createEntity(
+                Entity.builder().name("Shipment").displayName("Shipment").build()
+        );
+
+        PartitionMaintenanceReport first = factory.partitionManager().maintainPartitions(6);
+
+        assertTrue(first.lockAcquired());
+        assertTrue(first.entitiesChecked() >= 1);
+        assertTrue(first.failedEntities().isEmpty());
+        assertTrue(first.createdPartitions().stream().anyMatch(p -> p.startsWith("variables_entity_shipment_")));
+
+        PartitionMaintenanceReport second = factory.partitionManager().maintainPartitions(6);
+        assertTrue(second.createdPartitions().isEmpty());
+        assertNotNull(entity.id());
+    }
+
+    @Test
+    void shouldCreateEntityWhileMaintenanceLockIsHeld() throws Exception {
+        DataSource dataSource = factory.getDataSource();
+        try (Connection holder = dataSource.getConnection()) {
+            try (PreparedStatement ps = holder.prepareStatement("SELECT pg_advisory_lock(?)")) {
+                ps.setLong(1, PartitionManager.PARTITION_LOCK_KEY);
+                ps.executeQuery().close();
+            }
+
+            Entity entity = CompletableFuture.supplyAsync(() -> factory.entityService().createEntity(
+                    Entity.builder().name("Parcel").displayName("Parcel").build()
+            )).get(30, TimeUnit.SECONDS);
+
+            assertNotNull(entity.id());
+            assertFalse(factory.partitionManager().maintainPartitions(1).lockAcquired());
+        }
+    }
+}
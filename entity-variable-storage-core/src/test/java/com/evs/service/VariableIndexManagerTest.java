@@ -0,0 +1,88 @@
+package com.evs.service;
+
+import com.evs.model.Entity;
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableIndexManagerTest {
+
+    @Test
+    void shouldReadIndexedVariablesFromSchemaDefinition() {
+        Entity entity = Entity.builder()
+                .name("Order")
+                .schemaDefinition(Map.of("variables", Map.of(
+                        "amount", Map.of("type", "INTEGER", "indexed", true),
+                        "status_code", Map.of("type", "string", "indexed", true),
+                        "payload", Map.of("type", "JSON", "indexed", true),
+                        "note", Map.of("type", "STRING", "indexed", false),
+                        "broken", Map.of("type", "NOPE", "indexed", true))))
+                .build();
+
+        assertEquals(Map.of("amount", VariableType.INTEGER, "status_code", VariableType.STRING),
+                VariableIndexManager.indexedVariables(entity));
+        assertTrue(VariableIndexManager.indexedVariables(Entity.builder().name("Bare").build()).isEmpty());
+    }
+
+    @Test
+    void shouldReadTypeNamesIndependentOfDefaultLocale() {
+        Entity entity = Entity.builder()
+                .name("Order")
+                .schemaDefinition(Map.of("variables", Map.of("amount", Map.of("type", "integer", "indexed", true))))
+                .build();
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals(Map.of("amount", VariableType.INTEGER), VariableIndexManager.indexedVariables(entity));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void shouldDeriveStableShortIndexNames() {
+        String partition = "variables_entity_" + "a_very_long_entity_name".repeat(3) + "_y2025m01";
+        String name = VariableIndexManager.indexName(partition, "amount", VariableType.INTEGER);
+
+        assertEquals(name, VariableIndexManager.indexName(partition, "amount", VariableType.INTEGER));
+        assertNotEquals(name, VariableIndexManager.indexName(partition, "amount", VariableType.FLOAT));
+        assertTrue(name.startsWith(VariableIndexManager.INDEX_PREFIX));
+        assertTrue(name.length() <= 63);
+    }
+
+    @Test
+    void shouldQuoteIdentifiersAndLiterals() {
+        assertEquals("'it''s'", VariableIndexManager.quoteLiteral("it's"));
+        assertEquals("\"we\"\"ird\"", VariableIndexManager.quoteIdentifier("we\"ird"));
+    }
+
+    @Test
+    void shouldBuildInBackgroundWithoutFailingTheCaller() {
+        DataSource unavailable = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    throw new SQLException("connection refused");
+                });
+        Entity entity = Entity.builder()
+                .name("Order")
+                .schemaDefinition(Map.of("variables", Map.of("amount", Map.of("type", "INTEGER", "indexed", true))))
+                .build();
+
+        try (VariableIndexManager manager = new VariableIndexManager(unavailable, null)) {
+            CompletableFuture<List<String>> build = manager.ensureIndexesAsync(entity);
+
+            ExecutionException e = assertThrows(ExecutionException.class, build::get);
+            assertInstanceOf(SQLException.class, e.getCause().getCause());
+            assertEquals(List.of(), manager.ensureIndexesAsync(Entity.builder().name("Bare").build()).join());
+        }
+    }
+}
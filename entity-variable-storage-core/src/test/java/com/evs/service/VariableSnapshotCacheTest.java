@@ -0,0 +1,152 @@
+package com.evs.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableSnapshotCacheTest {
+
+    @Test
+    void shouldServeHitsUntilInvalidated() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(1000, 0);
+        UUID instanceId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, Object> first = cache.get(instanceId, id -> {
+            loads.incrementAndGet();
+            return Map.of("name", "Alice");
+        });
+        Map<String, Object> second = cache.get(instanceId, id -> {
+            loads.incrementAndGet();
+            return Map.of("name", "Bob");
+        });
+
+        assertEquals("Alice", first.get("name"));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        cache.invalidate(instanceId);
+        assertEquals("Carol", cache.get(instanceId, id -> Map.of("name", "Carol")).get("name"));
+
+        VariableSnapshotCacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void shouldNotCacheLoadOverlappingAWrite() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(1000, 0);
+        UUID instanceId = UUID.randomUUID();
+
+        cache.get(instanceId, id -> {
+            cache.invalidate(id);
+            return Map.of("stale", true);
+        });
+
+        assertEquals(Map.of("fresh", true), cache.get(instanceId, id -> Map.of("fresh", true)));
+    }
+
+    @Test
+    void shouldNotCacheLoadInterleavedWithInvalidation() throws Exception {
+        VariableSnapshotCache cache = new VariableSnapshotCache(1000, 0);
+        UUID instanceId = UUID.randomUUID();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        CompletableFuture<Map<String, Object>> load = CompletableFuture.supplyAsync(() -> cache.get(instanceId, id -> {
+            loading.countDown();
+            await(written);
+            return Map.of("stale", true);
+        }));
+        loading.await();
+        cache.invalidate(instanceId);
+        written.countDown();
+
+        assertEquals(Map.of("stale", true), load.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("fresh", true), cache.get(instanceId, id -> Map.of("fresh", true)));
+    }
+
+    @Test
+    void shouldCacheLoadOverlappingAWriteToAnotherInstance() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(1000, 0);
+        UUID instanceId = new UUID(0, 1);
+        UUID other = new UUID(0, 2);
+
+        cache.get(instanceId, id -> {
+            cache.invalidate(other);
+            return Map.of("name", "Alice");
+        });
+        Map<UUID, Map<String, Object>> bulk = cache.getAll(List.of(other, new UUID(0, 3)), ids -> {
+            cache.invalidate(other);
+            return Map.of();
+        });
+
+        assertEquals(Map.of("name", "Alice"), cache.get(instanceId, id -> Map.of("name", "Bob")));
+        assertEquals(2, bulk.size());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void shouldBulkLoadOnlyMisses() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(1000, 0);
+        UUID cached = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        cache.get(cached, id -> Map.of("name", "cached"));
+
+        Map<UUID, Map<String, Object>> result = cache.getAll(List.of(cached, missing), ids -> {
+            assertEquals(List.of(missing), List.copyOf(ids));
+            return Map.of();
+        });
+
+        assertEquals("cached", result.get(cached).get("name"));
+        assertTrue(result.get(missing).isEmpty());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    void shouldEvictByVariableCountWeight() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(10, 0);
+        Map<String, Object> large = new HashMap<>();
+        for (int i = 0; i < 8; i++) {
+            large.put("v" + i, i);
+        }
+
+        cache.get(UUID.randomUUID(), id -> large);
+        cache.get(UUID.randomUUID(), id -> large);
+
+        VariableSnapshotCacheStats stats = cache.stats();
+        assertEquals(1, stats.evictionCount());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void shouldAllowNullValuesInSnapshot() {
+        VariableSnapshotCache cache = new VariableSnapshotCache(100, 0);
+        Map<String, Object> withNull = new HashMap<>();
+        withNull.put("missing", null);
+
+        Map<String, Object> snapshot = cache.get(UUID.randomUUID(), id -> withNull);
+
+        assertTrue(snapshot.containsKey("missing"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put("x", 1));
+    }
+}
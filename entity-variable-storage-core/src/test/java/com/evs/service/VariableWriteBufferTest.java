@@ -0,0 +1,161 @@
+package com.evs.service;
+
+import com.evs.config.WriteBufferBackpressure;
+import com.evs.exception.EVSException;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import com.evs.repository.VariableRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableWriteBufferTest {
+
+    private final UUID entityId = UUID.randomUUID();
+    private final UUID instanceId = UUID.randomUUID();
+
+    @Test
+    void shouldFlushWhenBatchIsFull() throws Exception {
+        RecordingVariableService service = new RecordingVariableService();
+        try (VariableWriteBuffer buffer = new VariableWriteBuffer(service, 3, 60_000, 10, WriteBufferBackpressure.BLOCK)) {
+            List<CompletableFuture<Variable>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(buffer.add(variable("v" + i)));
+            }
+
+            for (CompletableFuture<Variable> future : futures) {
+                assertNotNull(future.get(5, TimeUnit.SECONDS).id());
+            }
+            assertEquals(List.of(3), service.batchSizes);
+        }
+    }
+
+    @Test
+    void shouldFlushAfterInterval() throws Exception {
+        RecordingVariableService service = new RecordingVariableService();
+        try (VariableWriteBuffer buffer = new VariableWriteBuffer(service, 100, 20, 100, WriteBufferBackpressure.BLOCK)) {
+            Variable saved = buffer.add(variable("late")).get(5, TimeUnit.SECONDS);
+
+            assertEquals("late", saved.variableName());
+            assertEquals(0, buffer.pending());
+        }
+    }
+
+    @Test
+    void shouldCoalescePerEntityAndFlushOnClose() {
+        RecordingVariableService service = new RecordingVariableService();
+        VariableWriteBuffer buffer = new VariableWriteBuffer(service, 100, 60_000, 100, WriteBufferBackpressure.BLOCK);
+        buffer.add(variable("a"));
+        buffer.add(variable("b"));
+        buffer.add(Variable.builder().from(variable("c")).entityId(UUID.randomUUID()).build());
+
+        buffer.close();
+
+        assertEquals(2, service.batchSizes.size());
+        assertEquals(3, service.batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(buffer.add(variable("after")).isCompletedExceptionally());
+    }
+
+    @Test
+    void shouldRejectWhenFullUnderDropPolicy() {
+        RecordingVariableService service = new RecordingVariableService();
+        try (VariableWriteBuffer buffer = new VariableWriteBuffer(service, 2, 60_000, 2, WriteBufferBackpressure.DROP)) {
+            service.blocked = true;
+            buffer.add(variable("a"));
+            buffer.add(variable("b"));
+
+            CompletableFuture<Variable> rejected = buffer.add(variable("c"));
+
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(EVSException.class, e.getCause());
+            service.blocked = false;
+        }
+    }
+
+    @Test
+    void shouldWriteGroupsInParallel() throws Exception {
+        CountDownLatch bothWriting = new CountDownLatch(2);
+        RecordingVariableService service = new RecordingVariableService() {
+            @Override
+            public List<Variable> createVariablesBatch(List<Variable> variables) {
+                bothWriting.countDown();
+                try {
+                    if (!bothWriting.await(5, TimeUnit.SECONDS)) {
+                        throw new EVSException("Batches were not written in parallel");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EVSException("Interrupted", e);
+                }
+                return super.createVariablesBatch(variables);
+            }
+        };
+        try (VariableWriteBuffer buffer = new VariableWriteBuffer(service, 1, 60_000, 10, WriteBufferBackpressure.BLOCK, 2)) {
+            CompletableFuture<Variable> first = buffer.add(variable("a"));
+            CompletableFuture<Variable> second = buffer.add(
+                    Variable.builder().from(variable("b")).entityId(UUID.randomUUID()).build());
+
+            assertNotNull(first.get(10, TimeUnit.SECONDS).id());
+            assertNotNull(second.get(10, TimeUnit.SECONDS).id());
+        }
+    }
+
+    @Test
+    void shouldWaitForBatchesAlreadyBeingWrittenOnFlush() {
+        RecordingVariableService service = new RecordingVariableService();
+        try (VariableWriteBuffer buffer = new VariableWriteBuffer(service, 2, 60_000, 10, WriteBufferBackpressure.BLOCK, 2)) {
+            CompletableFuture<Variable> full = buffer.add(variable("a"));
+            buffer.add(variable("b"));
+            CompletableFuture<Variable> partial = buffer.add(variable("c"));
+
+            buffer.flush();
+
+            assertTrue(full.isDone());
+            assertTrue(partial.isDone());
+            assertEquals(0, buffer.pending());
+        }
+    }
+
+    private Variable variable(String name) {
+        return Variable.builder()
+                .entityId(entityId)
+                .entityInstanceId(instanceId)
+                .variableName(name)
+                .variableType(VariableType.STRING)
+                .value(name)
+                .registeredAt(Instant.now())
+                .build();
+    }
+
+    private static class RecordingVariableService extends VariableService {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicLong ids = new AtomicLong();
+        volatile boolean blocked;
+
+        RecordingVariableService() {
+            super(new VariableRepository(null));
+        }
+
+        @Override
+        public List<Variable> createVariablesBatch(List<Variable> variables) {
+            while (blocked) {
+                Thread.onSpinWait();
+            }
+            batchSizes.add(variables.size());
+            return variables.stream()
+                    .map(v -> Variable.builder().from(v).id(ids.incrementAndGet()).build())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.evs.session;
+
+import com.evs.config.EVSConfig;
+import com.evs.config.EVSFactory;
+import com.evs.config.TransactionIsolation;
+import com.evs.model.Entity;
+import com.evs.model.EntityInstance;
+import com.evs.model.Variable;
+import com.evs.model.VariableType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class EVSSessionTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+            .withDatabaseName("evs_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private EVSFactory factory;
+    private Entity entity;
+
+    @BeforeEach
+    void setUp() {
+        EVSConfig config = new EVSConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(5);
+        config.setPartitionMaintenanceEnabled(false);
+
+        factory = new EVSFactory(config);
+        entity = factory.entityService().createEntity(Entity.builder()
+                .name("Session_" + UUID.randomUUID().toString().substring(0, 8)).displayName("Session").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void shouldCommitRepositoryCallsTogether() {
+        UUID instanceId;
+        try (EVSSession session = factory.openSession()) {
+            EntityInstance instance = session.entityInstanceRepository().save(
+                    EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build());
+            instanceId = instance.id();
+            session.variableRepository().saveBatch(List.of(
+                    Variable.builder().entityId(entity.id()).entityInstanceId(instanceId)
+                            .variableName("a").variableType(VariableType.STRING).value("1")
+                            .registeredAt(instance.registeredAt()).build()));
+            session.variableRepository().upsert(Variable.builder().entityInstanceId(instanceId)
+                    .variableName("b").variableType(VariableType.INTEGER).value(2L).build());
+
+            assertTrue(factory.entityInstanceService().findById(instanceId).isEmpty());
+            session.commit();
+        }
+
+        assertTrue(factory.entityInstanceService().findById(instanceId).isPresent());
+        assertEquals(2, factory.variableService().getVariablesByInstance(instanceId).size());
+    }
+
+    @Test
+    void shouldInvalidateCachedSnapshotsOnCommit() {
+        EVSConfig config = new EVSConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(5);
+        config.setVariableCacheEnabled(true);
+
+        try (EVSFactory cached = new EVSFactory(config)) {
+            UUID instanceId = cached.entityInstanceService().createInstance(
+                    EntityInstance.builder().entityId(entity.id()).uuid(UUID.randomUUID()).build()).id();
+            cached.variableService().setVariable(Variable.builder().entityInstanceId(instanceId)
+                    .variableName("tier").variableType(VariableType.STRING).value("silver").build());
+            assertEquals("silver", cached.variableService().getVariablesAsMap(instanceId).get("tier"));
+
+            try (EVSSession session = cached.openSession()) {
+                session.variableRepository().upsert(Variable.builder().entityInstanceId(instanceId)
+                        .variableName("tier").variableType(VariableType.STRING).value("gold").build());
+                assertEquals("silver", cached.variableService().getVariablesAsMap(instanceId).get("tier"));
+                session.commit();
+            }
+
+            assertEquals("gold", cached.variableService().getVariablesAsMap(instanceId).get("tier"));
+        }
+    }
+
+    @Test
+    void shouldDiscardUncommittedWorkOnRollbackAndClose() {
+        UUID rolledBack = UUID.randomUUID();
+        UUID unclosed = UUID.randomUUID();
+        try (EVSSession session = factory.openSession(TransactionIsolation.SERIALIZABLE)) {
+            session.entityInstanceRepository().save(
+                    EntityInstance.builder().id(rolledBack).entityId(entity.id()).uuid(UUID.randomUUID()).build());
+            session.rollback();
+            session.entityInstanceRepository().save(
+                    EntityInstance.builder().id(unclosed).entityId(entity.id()).uuid(UUID.randomUUID()).build());
+        }
+
+        assertTrue(factory.entityInstanceService().findById(rolledBack).isEmpty());
+        assertTrue(factory.entityInstanceService().findById(unclosed).isEmpty());
+    }
+
+    @Test
+    void shouldRestoreConnectionWhenClosed() throws Exception {
+        EVSSession session = factory.openSession(TransactionIsolation.REPEATABLE_READ);
+        try (Connection conn = session.getDataSource().getConnection()) {
+            assertEquals(Connection.TRANSACTION_REPEATABLE_READ, conn.getTransactionIsolation());
+        }
+        session.close();
+
+        assertTrue(session.isClosed());
+        assertThrows(com.evs.exception.EVSException.class, session::commit);
+        try (Connection conn = factory.getDataSource().getConnection()) {
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.evs.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetTokenTest {
+
+    @Test
+    void shouldRoundTrip() {
+        KeysetToken token = new KeysetToken(Instant.parse("2025-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        String encoded = token.encode();
+
+        assertFalse(encoded.contains("="));
+        assertEquals(token, KeysetToken.decode(encoded));
+    }
+
+    @Test
+    void shouldRejectGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetToken.decode("not-a-token"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetToken.decode("%%%"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.evs.util;
+
+import com.evs.metrics.MicrometerEVSMetrics;
+import com.evs.model.EntityInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyJsonMapTest {
+
+    private static final String JSON = "{\"region\":\"eu\",\"tags\":[\"a\",\"b\"],\"depth\":{\"level\":2}}";
+
+    @Test
+    void shouldParseOnFirstAccess() {
+        LazyJsonMap map = (LazyJsonMap) LazyJsonMap.of(JSON);
+
+        assertFalse(map.isParsed());
+        assertEquals("eu", map.get("region"));
+        assertTrue(map.isParsed());
+        assertEquals(List.of("a", "b"), map.get("tags"));
+        assertEquals(Map.of("level", 2), map.get("depth"));
+        assertEquals(JsonUtil.fromJson(JSON), map);
+        assertThrows(UnsupportedOperationException.class, () -> map.put("region", "us"));
+    }
+
+    @Test
+    void shouldDecodeEmptyColumnsEagerly() {
+        assertEquals(Map.of(), LazyJsonMap.of(null));
+        assertEquals(Map.of(), LazyJsonMap.of(" "));
+    }
+
+    @Test
+    void shouldPassRawJsonThroughWithoutParsing() throws Exception {
+        LazyJsonMap map = (LazyJsonMap) LazyJsonMap.of(JSON);
+
+        assertSame(JSON, JsonUtil.toJson(map));
+        String wrapped = JsonUtil.getMapper().writeValueAsString(Map.of("context", map));
+
+        assertEquals("{\"context\":" + JSON + "}", wrapped);
+        assertFalse(map.isParsed());
+    }
+
+    @Test
+    void shouldSurviveRecordBuildersUnparsed() {
+        Map<String, Object> context = LazyJsonMap.of(JSON);
+
+        EntityInstance instance = EntityInstance.builder().context(context).build();
+
+        assertSame(context, instance.context());
+        assertFalse(((LazyJsonMap) context).isParsed());
+    }
+
+    @Test
+    void shouldReportDeferredParseToItsOwnMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Map<String, Object> map = LazyJsonMap.of(JSON, new MicrometerEVSMetrics(registry));
+
+        LazyJsonMap.of(JSON).size();
+        assertNull(registry.find("evs.json.serialization").timer());
+
+        map.size();
+        assertEquals(1, registry.get("evs.json.serialization").tag("direction", "deserialize").timer().count());
+    }
+}
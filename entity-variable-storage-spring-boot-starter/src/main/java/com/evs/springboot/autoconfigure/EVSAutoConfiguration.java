@@ -1,11 +1,18 @@
 package com.evs.springboot.autoconfigure;
 
+import com.evs.codec.ValueCodec;
 import com.evs.config.EVSConfig;
 import com.evs.config.EVSFactory;
+import com.evs.metrics.EVSMetrics;
+import com.evs.metrics.MicrometerEVSMetrics;
 import com.evs.service.EntityInstanceService;
 import com.evs.service.EntityService;
 import com.evs.service.VariableService;
 import com.evs.springboot.properties.EVSProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,11 +26,29 @@ import javax.sql.DataSource;
 @ConditionalOnClass(EVSFactory.class)
 @ConditionalOnProperty(prefix = "evs", name = "enabled", havingValue = "true", matchIfMissing = true)
 @EnableConfigurationProperties(EVSProperties.class)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 public class EVSAutoConfiguration {
 
+    /**
+     * Records EVS metrics, including HikariCP pool metrics, to the application's
+     * {@link MeterRegistry} when Micrometer is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnMissingBean(EVSMetrics.class)
+        public EVSMetrics evsMetrics(MeterRegistry meterRegistry) {
+            return new MicrometerEVSMetrics(meterRegistry);
+        }
+    }
+
     @Bean
     @ConditionalOnMissingBean(EVSConfig.class)
-    public EVSConfig evsConfig(EVSProperties properties) {
+    public EVSConfig evsConfig(EVSProperties properties, ObjectProvider<EVSMetrics> metrics,
+                               ObjectProvider<ValueCodec> valueCodec) {
         EVSConfig config = new EVSConfig();
         config.setJdbcUrl(properties.getJdbcUrl());
         config.setUsername(properties.getUsername());
@@ -31,10 +56,37 @@ public class EVSAutoConfiguration {
         config.setMaximumPoolSize(properties.getMaximumPoolSize());
         config.setMinimumIdle(properties.getMinimumIdle());
         config.setAutoMigrate(properties.isAutoMigrate());
+        config.setBatchInsertMode(properties.getBatchInsertMode());
+        config.setPartitionMaintenanceEnabled(properties.isPartitionMaintenanceEnabled());
+        config.setPartitionMonthsAhead(properties.getPartitionMonthsAhead());
+        config.setPartitionMaintenanceInterval(properties.getPartitionMaintenanceInterval());
+        config.setEntityCacheEnabled(properties.isEntityCacheEnabled());
+        config.setEntityCacheMaxSize(properties.getEntityCacheMaxSize());
+        config.setEntityCacheTtl(properties.getEntityCacheTtl());
+        config.setEntityCachePreload(properties.isEntityCachePreload());
+        config.setVariableCacheEnabled(properties.isVariableCacheEnabled());
+        config.setVariableCacheMaxWeight(properties.getVariableCacheMaxWeight());
+        config.setVariableCacheTtl(properties.getVariableCacheTtl());
+        config.setWriteBufferMaxBatchSize(properties.getWriteBufferMaxBatchSize());
+        config.setWriteBufferFlushInterval(properties.getWriteBufferFlushInterval());
+        config.setWriteBufferCapacity(properties.getWriteBufferCapacity());
+        config.setWriteBufferBackpressure(properties.getWriteBufferBackpressure());
+        config.setWriteBufferWriters(properties.getWriteBufferWriters());
+        config.setStreamFetchSize(properties.getStreamFetchSize());
+        config.setMetrics(metrics.getIfAvailable(() -> EVSMetrics.NOOP));
+        config.setVariableIndexingEnabled(properties.isVariableIndexingEnabled());
+        config.setJdbcReWriteBatchedInserts(properties.isJdbcReWriteBatchedInserts());
+        config.setJdbcPrepareThreshold(properties.getJdbcPrepareThreshold());
+        config.setJdbcPreparedStatementCacheQueries(properties.getJdbcPreparedStatementCacheQueries());
+        config.setJdbcDefaultRowFetchSize(properties.getJdbcDefaultRowFetchSize());
+        config.setJdbcBinaryTransfer(properties.isJdbcBinaryTransfer());
+        config.setSessionIsolation(properties.getSessionIsolation());
+        config.setValueCompressionThreshold(properties.getValueCompressionThreshold());
+        valueCodec.ifAvailable(config::setValueCodec);
         return config;
     }
 
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean(EVSFactory.class)
     public EVSFactory evsFactory(EVSConfig config) {
         return new EVSFactory(config);
@@ -1,5 +1,8 @@
 package com.evs.springboot.properties;
 
+import com.evs.config.BatchInsertMode;
+import com.evs.config.TransactionIsolation;
+import com.evs.config.WriteBufferBackpressure;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -14,6 +17,31 @@ public class EVSProperties {
     private int maximumPoolSize = 25;
     private int minimumIdle = 5;
     private boolean autoMigrate = true;
+    private BatchInsertMode batchInsertMode = BatchInsertMode.INSERT;
+    private boolean partitionMaintenanceEnabled = true;
+    private int partitionMonthsAhead = 3;
+    private long partitionMaintenanceInterval = 3600000;
+    private boolean entityCacheEnabled = true;
+    private long entityCacheMaxSize = 10000;
+    private long entityCacheTtl = 300000;
+    private boolean entityCachePreload = false;
+    private boolean variableCacheEnabled = false;
+    private long variableCacheMaxWeight = 100000;
+    private long variableCacheTtl = 60000;
+    private int writeBufferMaxBatchSize = 1000;
+    private long writeBufferFlushInterval = 100;
+    private int writeBufferCapacity = 100000;
+    private WriteBufferBackpressure writeBufferBackpressure = WriteBufferBackpressure.BLOCK;
+    private int writeBufferWriters = 0;
+    private int streamFetchSize = 1000;
+    private boolean variableIndexingEnabled = true;
+    private boolean jdbcReWriteBatchedInserts = true;
+    private int jdbcPrepareThreshold = 5;
+    private int jdbcPreparedStatementCacheQueries = 256;
+    private int jdbcDefaultRowFetchSize = 0;
+    private boolean jdbcBinaryTransfer = true;
+    private TransactionIsolation sessionIsolation = TransactionIsolation.READ_COMMITTED;
+    private int valueCompressionThreshold = 0;
 
     public String getJdbcUrl() {
         return jdbcUrl;
@@ -62,4 +90,204 @@ public class EVSProperties {
     public void setAutoMigrate(boolean autoMigrate) {
         this.autoMigrate = autoMigrate;
     }
+
+    public BatchInsertMode getBatchInsertMode() {
+        return batchInsertMode;
+    }
+
+    public void setBatchInsertMode(BatchInsertMode batchInsertMode) {
+        this.batchInsertMode = batchInsertMode;
+    }
+
+    public boolean isPartitionMaintenanceEnabled() {
+        return partitionMaintenanceEnabled;
+    }
+
+    public void setPartitionMaintenanceEnabled(boolean partitionMaintenanceEnabled) {
+        this.partitionMaintenanceEnabled = partitionMaintenanceEnabled;
+    }
+
+    public int getPartitionMonthsAhead() {
+        return partitionMonthsAhead;
+    }
+
+    public void setPartitionMonthsAhead(int partitionMonthsAhead) {
+        this.partitionMonthsAhead = partitionMonthsAhead;
+    }
+
+    public long getPartitionMaintenanceInterval() {
+        return partitionMaintenanceInterval;
+    }
+
+    public void setPartitionMaintenanceInterval(long partitionMaintenanceInterval) {
+        this.partitionMaintenanceInterval = partitionMaintenanceInterval;
+    }
+
+    public boolean isEntityCacheEnabled() {
+        return entityCacheEnabled;
+    }
+
+    public void setEntityCacheEnabled(boolean entityCacheEnabled) {
+        this.entityCacheEnabled = entityCacheEnabled;
+    }
+
+    public long getEntityCacheMaxSize() {
+        return entityCacheMaxSize;
+    }
+
+    public void setEntityCacheMaxSize(long entityCacheMaxSize) {
+        this.entityCacheMaxSize = entityCacheMaxSize;
+    }
+
+    public long getEntityCacheTtl() {
+        return entityCacheTtl;
+    }
+
+    public void setEntityCacheTtl(long entityCacheTtl) {
+        this.entityCacheTtl = entityCacheTtl;
+    }
+
+    public boolean isEntityCachePreload() {
+        return entityCachePreload;
+    }
+
+    public void setEntityCachePreload(boolean entityCachePreload) {
+        this.entityCachePreload = entityCachePreload;
+    }
+
+    public boolean isVariableCacheEnabled() {
+        return variableCacheEnabled;
+    }
+
+    public void setVariableCacheEnabled(boolean variableCacheEnabled) {
+        this.variableCacheEnabled = variableCacheEnabled;
+    }
+
+    public long getVariableCacheMaxWeight() {
+        return variableCacheMaxWeight;
+    }
+
+    public void setVariableCacheMaxWeight(long variableCacheMaxWeight) {
+        this.variableCacheMaxWeight = variableCacheMaxWeight;
+    }
+
+    public long getVariableCacheTtl() {
+        return variableCacheTtl;
+    }
+
+    public void setVariableCacheTtl(long variableCacheTtl) {
+        this.variableCacheTtl = variableCacheTtl;
+    }
+
+    public int getWriteBufferMaxBatchSize() {
+        return writeBufferMaxBatchSize;
+    }
+
+    public void setWriteBufferMaxBatchSize(int writeBufferMaxBatchSize) {
+        this.writeBufferMaxBatchSize = writeBufferMaxBatchSize;
+    }
+
+    public long getWriteBufferFlushInterval() {
+        return writeBufferFlushInterval;
+    }
+
+    public void setWriteBufferFlushInterval(long writeBufferFlushInterval) {
+        this.writeBufferFlushInterval = writeBufferFlushInterval;
+    }
+
+    public int getWriteBufferCapacity() {
+        return writeBufferCapacity;
+    }
+
+    public void setWriteBufferCapacity(int writeBufferCapacity) {
+        this.writeBufferCapacity = writeBufferCapacity;
+    }
+
+    public WriteBufferBackpressure getWriteBufferBackpressure() {
+        return writeBufferBackpressure;
+    }
+
+    public void setWriteBufferBackpressure(WriteBufferBackpressure writeBufferBackpressure) {
+        this.writeBufferBackpressure = writeBufferBackpressure;
+    }
+
+    public int getWriteBufferWriters() {
+        return writeBufferWriters;
+    }
+
+    public void setWriteBufferWriters(int writeBufferWriters) {
+        this.writeBufferWriters = writeBufferWriters;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public boolean isVariableIndexingEnabled() {
+        return variableIndexingEnabled;
+    }
+
+    public void setVariableIndexingEnabled(boolean variableIndexingEnabled) {
+        this.variableIndexingEnabled = variableIndexingEnabled;
+    }
+
+    public boolean isJdbcReWriteBatchedInserts() {
+        return jdbcReWriteBatchedInserts;
+    }
+
+    public void setJdbcReWriteBatchedInserts(boolean jdbcReWriteBatchedInserts) {
+        this.jdbcReWriteBatchedInserts = jdbcReWriteBatchedInserts;
+    }
+
+    public int getJdbcPrepareThreshold() {
+        return jdbcPrepareThreshold;
+    }
+
+    public void setJdbcPrepareThreshold(int jdbcPrepareThreshold) {
+        this.jdbcPrepareThreshold = jdbcPrepareThreshold;
+    }
+
+    public int getJdbcPreparedStatementCacheQueries() {
+        return jdbcPreparedStatementCacheQueries;
+    }
+
+    public void setJdbcPreparedStatementCacheQueries(int jdbcPreparedStatementCacheQueries) {
+        this.jdbcPreparedStatementCacheQueries = jdbcPreparedStatementCacheQueries;
+    }
+
+    public int getJdbcDefaultRowFetchSize() {
+        return jdbcDefaultRowFetchSize;
+    }
+
+    public void setJdbcDefaultRowFetchSize(int jdbcDefaultRowFetchSize) {
+        this.jdbcDefaultRowFetchSize = jdbcDefaultRowFetchSize;
+    }
+
+    public boolean isJdbcBinaryTransfer() {
+        return jdbcBinaryTransfer;
+    }
+
+    public void setJdbcBinaryTransfer(boolean jdbcBinaryTransfer) {
+        this.jdbcBinaryTransfer = jdbcBinaryTransfer;
+    }
+
+    public TransactionIsolation getSessionIsolation() {
+        return sessionIsolation;
+    }
+
+    public void setSessionIsolation(TransactionIsolation sessionIsolation) {
+        this.sessionIsolation = sessionIsolation;
+    }
+
+    public int getValueCompressionThreshold() {
+        return valueCompressionThreshold;
+    }
+
+    public void setValueCompressionThreshold(int valueCompressionThreshold) {
+        this.valueCompressionThreshold = valueCompressionThreshold;
+    }
 }